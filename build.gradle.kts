@@ -1,6 +1,37 @@
-
 plugins {
     id("com.gtnewhorizons.gtnhconvention")
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 version = "1.0.0"
+
+// Minecraft-free core (config model, parsing, validation, lookup index, effect selection).
+// Compiled on its own so it can't reach game classes, then bundled into the mod jar.
+val core: SourceSet = sourceSets.create("core")
+
+dependencies {
+    "coreImplementation"("com.google.code.gson:gson:2.2.4")
+    implementation(core.output)
+
+    // Benchmarks only see the core and its stand-in registry, run them with ./gradlew jmh
+    "jmhImplementation"(core.output)
+    "jmhImplementation"("com.google.code.gson:gson:2.2.4")
+
+    // Unit tests cover the core, which runs without the game
+    testImplementation(core.output)
+    testImplementation(platform("org.junit:junit-bom:5.9.2"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+}
+
+tasks.test {
+    useJUnitPlatform()
+}
+
+tasks.jar {
+    from(core.output)
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    includeTests.set(false)
+}
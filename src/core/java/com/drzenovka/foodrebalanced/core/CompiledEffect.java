@@ -0,0 +1,63 @@
+package com.drzenovka.foodrebalanced.core;
+
+import java.util.Random;
+
+/** Potion effect resolved from an EffectData at load time, ready to apply without any lookups */
+public final class CompiledEffect {
+
+    public static final CompiledEffect[] NONE = new CompiledEffect[0];
+
+    public final int potionId;
+    public final int durationTicks;
+    public final int amplifier;
+    public final float chance;
+    /** Ticks between eating and the first application */
+    public final int delayTicks;
+    /** Ticks between applications when the effect repeats */
+    public final int intervalTicks;
+    /** How many times the effect is applied in total */
+    public final int repeat;
+
+    public CompiledEffect(int potionId, int durationTicks, int amplifier, float chance) {
+        this(potionId, durationTicks, amplifier, chance, 0, 0, 1);
+    }
+
+    public CompiledEffect(int potionId, int durationTicks, int amplifier, float chance, int delayTicks,
+        int intervalTicks, int repeat) {
+        this.potionId = potionId;
+        this.durationTicks = durationTicks;
+        this.amplifier = amplifier;
+        this.chance = chance;
+        this.delayTicks = delayTicks;
+        this.intervalTicks = intervalTicks;
+        this.repeat = repeat;
+    }
+
+    /** Applied once, right when eating finishes, the way vanilla applies a food's potion */
+    public boolean isImmediate() {
+        return delayTicks == 0 && repeat <= 1;
+    }
+
+    /** Roll this effect's chance */
+    public boolean rolls(Random rng) {
+        return rng.nextFloat() <= chance;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CompiledEffect other)) return false;
+        return potionId == other.potionId && durationTicks == other.durationTicks
+            && amplifier == other.amplifier
+            && Float.compare(chance, other.chance) == 0
+            && delayTicks == other.delayTicks
+            && intervalTicks == other.intervalTicks
+            && repeat == other.repeat;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = ((potionId * 31 + durationTicks) * 31 + amplifier) * 31 + Float.floatToIntBits(chance);
+        return ((hash * 31 + delayTicks) * 31 + intervalTicks) * 31 + repeat;
+    }
+}
@@ -0,0 +1,31 @@
+package com.drzenovka.foodrebalanced.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** One config file: its entries in file order, the problems found in it and the SHA-1 of its bytes on disk */
+public class ConfigShard {
+
+    public final String name;
+    public final Map<String, FoodData> document;
+    public final ValidationReport report;
+    /** Null for a shard that only exists in memory so far */
+    public final byte[] hash;
+
+    public ConfigShard(String name, Map<String, FoodData> document, ValidationReport report, byte[] hash) {
+        this.name = name;
+        this.document = document;
+        this.report = report;
+        this.hash = hash;
+    }
+
+    /** A new, empty shard that has not been written yet */
+    public static ConfigShard create(String name) {
+        return new ConfigShard(name, new LinkedHashMap<>(), new ValidationReport(name), null);
+    }
+
+    /** The same shard after its contents were written with the given hash */
+    public ConfigShard written(byte[] newHash) {
+        return new ConfigShard(name, document, report, newHash);
+    }
+}
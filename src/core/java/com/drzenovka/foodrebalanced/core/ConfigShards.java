@@ -0,0 +1,132 @@
+package com.drzenovka.foodrebalanced.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * The food config is split into one file per mod namespace, such as {@code minecraft.json}. A shard may also
+ * hold entries for other namespaces, so merging follows a fixed precedence: the legacy single file loses to
+ * everything, other shards apply in alphabetical order with the last one winning, and an entry in its own
+ * namespace's shard beats them all.
+ */
+public class ConfigShards {
+
+    /** The old single-file config, still read so its entries can be migrated */
+    public static final String LEGACY_FILE = "food_overrides.json";
+    public static final String EXTENSION = ".json";
+    /** Home of the rules that span namespaces, {@code *} and {@code ore:} keys */
+    public static final String RULES_FILE = "rules.json";
+
+    private static final Comparator<ConfigShard> PRECEDENCE = Comparator
+        .comparing((ConfigShard shard) -> !LEGACY_FILE.equals(shard.name))
+        .thenComparing(shard -> shard.name);
+
+    /** The shard an entry is written to, named after its namespace */
+    public static String fileFor(String key) {
+        String namespace = FoodKeys.namespace(key);
+        if (namespace == null) return RULES_FILE;
+        return namespace.toLowerCase(Locale.ROOT)
+            .replaceAll("[^a-z0-9_.-]", "_") + EXTENSION;
+    }
+
+    public static boolean isShardFile(String fileName) {
+        return fileName.endsWith(EXTENSION) && !fileName.startsWith(".");
+    }
+
+    /** Every shard file in the directory, sorted by name */
+    public static List<File> list(File dir) {
+        File[] files = dir.listFiles((parent, name) -> isShardFile(name));
+        if (files == null) return Collections.emptyList();
+
+        Arrays.sort(files, Comparator.comparing(File::getName));
+        return Arrays.asList(files);
+    }
+
+    /**
+     * Read the files on the given pool. A shard whose bytes still match its cached copy is reused as is,
+     * anything else is parsed and its effects compiled. A malformed file fails the whole load.
+     */
+    public static List<ConfigShard> load(List<File> files, Map<String, ConfigShard> cached, PotionLookup potions,
+        ExecutorService pool) throws IOException {
+        List<Future<ConfigShard>> futures = new ArrayList<>(files.size());
+        for (File file : files) futures.add(pool.submit(() -> read(file, cached.get(file.getName()), potions)));
+
+        List<ConfigShard> shards = new ArrayList<>(files.size());
+        try {
+            for (Future<ConfigShard> future : futures) shards.add(future.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                .interrupt();
+            throw new InterruptedIOException("Interrupted while loading the food config");
+        } catch (ExecutionException e) {
+            for (Future<ConfigShard> future : futures) future.cancel(true);
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IOException(e.getCause());
+        }
+        return shards;
+    }
+
+    /** Read a single shard, parsing it only if it changed since it was cached */
+    public static ConfigShard read(File file, ConfigShard cached, PotionLookup potions) throws IOException {
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        byte[] hash = FoodTableCache.hash(bytes);
+        if (cached != null && Arrays.equals(cached.hash, hash)) return cached;
+
+        ValidationReport report = new ValidationReport(file.getName());
+        Map<String, FoodData> document;
+        try (Reader reader = new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8)) {
+            document = FoodConfigParser.parse(reader, report);
+        } catch (IOException e) {
+            throw new IOException(file.getName() + ": " + e.getMessage(), e);
+        }
+
+        for (Map.Entry<String, FoodData> entry : document.entrySet()) {
+            if (!report.isRejected(entry.getKey())) {
+                EffectCompiler.compile(entry.getKey(), entry.getValue(), potions, report);
+            }
+        }
+        return new ConfigShard(file.getName(), document, report, hash);
+    }
+
+    /** The valid entries of all shards, merged by precedence */
+    public static Map<String, FoodData> merge(Collection<ConfigShard> shards) {
+        List<ConfigShard> ordered = new ArrayList<>(shards);
+        ordered.sort(PRECEDENCE);
+
+        Map<String, FoodData> merged = new LinkedHashMap<>();
+        Set<String> fromHome = new HashSet<>();
+        for (ConfigShard shard : ordered) {
+            for (Map.Entry<String, FoodData> entry : shard.document.entrySet()) {
+                String key = entry.getKey();
+                if (shard.report.isRejected(key)) continue;
+
+                boolean home = shard.name.equals(fileFor(key));
+                if (!home && fromHome.contains(key)) continue;
+
+                merged.put(key, entry.getValue());
+                if (home) fromHome.add(key);
+            }
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,118 @@
+package com.drzenovka.foodrebalanced.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free queue of fixed-size eat records, stored in preallocated primitive arrays so adding one
+ * allocates nothing. Any thread may add, a single consumer drains. Each slot carries a sequence number
+ * telling producers and the consumer whose turn it is; when the buffer is full the record is dropped and
+ * counted instead of waiting.
+ */
+public final class EatRecordBuffer {
+
+    /**
+     * Longs per record: time, the two halves of the player's UUID, dimension and item id, meta and hunger,
+     * saturation, and the rolled effects
+     */
+    private static final int STRIDE = 7;
+
+    /** Receives drained records, the effects array is the shared one of the food entry */
+    public interface Consumer {
+
+        void accept(long timeMillis, long playerMost, long playerLeast, int dimension, int itemId, int meta,
+            int hunger, float saturation, CompiledEffect[] effects, long rolled);
+    }
+
+    private final int mask;
+    private final long[] data;
+    private final CompiledEffect[][] effects;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private long head; // consumer only
+
+    /** A buffer of at least the given number of records, rounded up to a power of two */
+    public EatRecordBuffer(int minCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(minCapacity - 1, 1)) << 1;
+        this.mask = capacity - 1;
+        this.data = new long[capacity * STRIDE];
+        this.effects = new CompiledEffect[capacity][];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) sequences.set(i, i);
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Add a record, returns false if the buffer was full and it was dropped. {@code rolled} has bit i set
+     * when effect i of {@code effects} was applied.
+     */
+    public boolean add(long timeMillis, long playerMost, long playerLeast, int dimension, int itemId, int meta,
+        int hunger, float saturation, CompiledEffect[] effects, long rolled) {
+        long position;
+        int slot;
+        while (true) {
+            position = tail.get();
+            slot = (int) (position & mask);
+            long sequence = sequences.get(slot);
+            if (sequence < position) {
+                // The consumer hasn't freed this slot since the last lap
+                dropped.incrementAndGet();
+                return false;
+            }
+            if (sequence == position && tail.compareAndSet(position, position + 1)) break;
+        }
+
+        int base = slot * STRIDE;
+        data[base] = timeMillis;
+        data[base + 1] = playerMost;
+        data[base + 2] = playerLeast;
+        data[base + 3] = (long) dimension << 32 | itemId & 0xFFFFFFFFL;
+        data[base + 4] = (long) meta << 32 | hunger & 0xFFFFFFFFL;
+        data[base + 5] = Float.floatToRawIntBits(saturation);
+        data[base + 6] = rolled;
+        this.effects[slot] = effects;
+        // Publishes the writes above to the consumer
+        sequences.lazySet(slot, position + 1);
+        return true;
+    }
+
+    /** Pass up to {@code max} records to the consumer in the order they were added, returns how many */
+    public int drain(Consumer consumer, int max) {
+        int count = 0;
+        while (count < max) {
+            int slot = (int) (head & mask);
+            if (sequences.get(slot) != head + 1) break;
+
+            int base = slot * STRIDE;
+            long item = data[base + 3];
+            long food = data[base + 4];
+            CompiledEffect[] slotEffects = effects[slot];
+            effects[slot] = null;
+            consumer.accept(
+                data[base],
+                data[base + 1],
+                data[base + 2],
+                (int) (item >> 32),
+                (int) item,
+                (int) (food >> 32),
+                (int) food,
+                Float.intBitsToFloat((int) data[base + 5]),
+                slotEffects,
+                data[base + 6]);
+
+            sequences.lazySet(slot, head + mask + 1);
+            head++;
+            count++;
+        }
+        return count;
+    }
+
+    /** Records dropped because the buffer was full */
+    public long dropped() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,37 @@
+package com.drzenovka.foodrebalanced.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Turns the effect list of a config entry into {@link CompiledEffect}s */
+public class EffectCompiler {
+
+    /** Resolve the effects of an entry once, so eating never touches potion names */
+    public static void compile(String key, FoodData data, PotionLookup potions, ValidationReport report) {
+        if (data.effects == null || data.effects.isEmpty()) {
+            data.compiledEffects = CompiledEffect.NONE;
+            return;
+        }
+
+        List<CompiledEffect> compiled = new ArrayList<>(data.effects.size());
+        for (FoodData.EffectData ed : data.effects) {
+            if (ed == null || ed.id == null || ed.duration == null || ed.duration <= 0) continue;
+
+            int potionId = potions.resolve(ed.id);
+            if (potionId < 0) {
+                if (report != null) report.warn(key, "unknown potion ID " + ed.id + ", effect ignored");
+                else System.err.println("[FoodRebalanced] Unknown potion ID " + ed.id + " for food: " + key);
+                continue;
+            }
+
+            int amplifier = ed.amplifier != null ? ed.amplifier : 0;
+            float chance = (ed.chance == null || ed.chance <= 0f) ? 1f : ed.chance;
+            int delay = ed.delay != null ? ed.delay * 20 : 0; // seconds to ticks
+            int repeat = ed.repeat != null ? Math.max(ed.repeat, 1) : 1;
+            int interval = repeat > 1 && ed.interval != null ? ed.interval * 20 : 0;
+            compiled.add(new CompiledEffect(potionId, ed.duration * 20, amplifier, chance, delay, interval, repeat));
+        }
+
+        data.compiledEffects = compiled.isEmpty() ? CompiledEffect.NONE : compiled.toArray(new CompiledEffect[0]);
+    }
+}
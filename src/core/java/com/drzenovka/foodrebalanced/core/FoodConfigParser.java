@@ -0,0 +1,326 @@
+package com.drzenovka.foodrebalanced.core;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Streaming reader for food config files. Entries are deserialized straight from the token stream,
+ * validation problems are collected in a {@link ValidationReport} with their position, and parsing
+ * carries on with the next entry. Only malformed JSON aborts the load.
+ */
+public class FoodConfigParser {
+
+    /**
+     * Read every entry in the document, in file order. Entries that failed validation are included as far
+     * as they could be read, so they survive a rewrite, and are marked in the report.
+     */
+    public static Map<String, FoodData> parse(Reader source, ValidationReport report) throws IOException {
+        Map<String, FoodData> entries = new LinkedHashMap<>();
+        JsonReader in = new JsonReader(source);
+        in.setLenient(true);
+
+        try {
+            if (in.peek() == JsonToken.NULL) return entries;
+        } catch (EOFException e) {
+            return entries; // empty file
+        }
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String key = in.nextName();
+            String location = location(in);
+
+            FoodData data = readEntry(in, key, report);
+            if (data == null) continue;
+            if (entries.put(key, data) != null) report.warn(location, key, "duplicate entry, the last one wins");
+        }
+        in.endObject();
+
+        return entries;
+    }
+
+    private static FoodData readEntry(JsonReader in, String key, ValidationReport report) throws IOException {
+        String location = location(in);
+        if (in.peek() != JsonToken.BEGIN_OBJECT) {
+            report.error(location, key, "expected an object");
+            in.skipValue();
+            return null;
+        }
+
+        FoodData data = new FoodData();
+        boolean hasHunger = false;
+        boolean hasSaturation = false;
+        boolean hasNbt = false;
+        boolean hasEffects = false;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String field = in.nextName();
+            switch (field) {
+                case "name":
+                    data.name = readString(in, key, field, report);
+                    break;
+                case "hunger": {
+                    hasHunger = true;
+                    String at = location(in);
+                    String raw = readRaw(in, key, field, report);
+                    if (isFormula(raw)) {
+                        data.hungerExpression = parseFormula(at, key, field, raw, false, report);
+                    } else {
+                        data.hunger = toInt(at, key, field, parseNumber(at, key, field, raw, report), report);
+                    }
+                    break;
+                }
+                case "saturation": {
+                    hasSaturation = true;
+                    String at = location(in);
+                    String raw = readRaw(in, key, field, report);
+                    if (isFormula(raw)) {
+                        data.saturationExpression = parseFormula(at, key, field, raw, true, report);
+                    } else {
+                        Double value = parseNumber(at, key, field, raw, report);
+                        data.saturation = value != null ? value.floatValue() : null;
+                    }
+                    break;
+                }
+                case "effects":
+                    hasEffects = true;
+                    data.effects = readEffects(in, key, report);
+                    break;
+                case "priority":
+                    data.priority = readInt(in, key, field, report);
+                    break;
+                case "nbt":
+                    hasNbt = true;
+                    data.nbt = readNbt(in, key, report);
+                    break;
+                default:
+                    report.warn(location(in), key, "unknown field " + field + " ignored");
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+
+        // Rules fall back to the vanilla values of each item for anything they leave out
+        boolean rule = FoodKeys.isRule(key);
+        if (rule && !hasEffects) data.effects = null;
+        if (!rule) {
+            boolean noHunger = data.hunger == null && data.hungerExpression == null;
+            boolean noSaturation = data.saturation == null && data.saturationExpression == null;
+            if (!hasHunger || (noHunger && !report.isRejected(key))) report.error(location, key, "missing hunger");
+            if (!hasSaturation || (noSaturation && !report.isRejected(key)))
+                report.error(location, key, "missing saturation");
+        }
+        if (FoodKeys.isVariant(key) && !hasNbt) {
+            report.error(location, key, "entries with a #label need an nbt object");
+        } else if (!FoodKeys.isVariant(key) && hasNbt) {
+            report.error(location, key, "nbt is only allowed on keys of the form id:meta#label");
+        }
+        if (data.nbt != null) data.nbtPattern = NbtPattern.compile(data.nbt);
+
+        return data;
+    }
+
+    private static JsonObject readNbt(JsonReader in, String key, ValidationReport report) throws IOException {
+        String location = location(in);
+        JsonElement value = new JsonParser().parse(in);
+        if (!value.isJsonObject() || value.getAsJsonObject()
+            .entrySet()
+            .isEmpty()) {
+            report.error(location, key, "nbt must be an object with at least one tag");
+            return null;
+        }
+        return value.getAsJsonObject();
+    }
+
+    private static List<FoodData.EffectData> readEffects(JsonReader in, String key, ValidationReport report)
+        throws IOException {
+        List<FoodData.EffectData> effects = new ArrayList<>();
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return effects;
+        }
+        if (token != JsonToken.BEGIN_ARRAY) {
+            report.error(location(in), key, "effects must be an array");
+            in.skipValue();
+            return effects;
+        }
+
+        in.beginArray();
+        while (in.hasNext()) {
+            String location = location(in);
+            if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                report.error(location, key, "effect must be an object");
+                in.skipValue();
+                continue;
+            }
+
+            FoodData.EffectData effect = new FoodData.EffectData();
+            in.beginObject();
+            while (in.hasNext()) {
+                String field = in.nextName();
+                switch (field) {
+                    case "id":
+                        effect.id = readString(in, key, field, report);
+                        break;
+                    case "duration":
+                        effect.duration = readInt(in, key, field, report);
+                        break;
+                    case "amplifier":
+                        effect.amplifier = readInt(in, key, field, report);
+                        break;
+                    case "chance":
+                        effect.chance = readFloat(in, key, field, report);
+                        break;
+                    case "delay":
+                        effect.delay = readInt(in, key, field, report);
+                        break;
+                    case "interval":
+                        effect.interval = readInt(in, key, field, report);
+                        break;
+                    case "repeat":
+                        effect.repeat = readInt(in, key, field, report);
+                        break;
+                    default:
+                        report.warn(location(in), key, "unknown effect field " + field + " ignored");
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+
+            validateEffect(location, key, effect, report);
+            effects.add(effect);
+        }
+        in.endArray();
+
+        return effects;
+    }
+
+    private static void validateEffect(String location, String key, FoodData.EffectData ed, ValidationReport report) {
+        if (ed.id == null || ed.id.isEmpty()) {
+            report.error(location, key, "effect id missing");
+            return;
+        }
+        if (ed.duration == null || ed.duration <= 0)
+            report.error(location, key, "duration invalid for effect " + ed.id);
+        if (ed.amplifier == null || ed.amplifier < 0)
+            report.error(location, key, "amplifier invalid for effect " + ed.id);
+        if (ed.chance == null || ed.chance < 0f || ed.chance > 1f)
+            report.error(location, key, "chance invalid for effect " + ed.id);
+        if (ed.delay != null && ed.delay < 0) report.error(location, key, "delay invalid for effect " + ed.id);
+        if (ed.repeat != null && ed.repeat < 1) report.error(location, key, "repeat invalid for effect " + ed.id);
+        if (ed.repeat != null && ed.repeat > 1 && (ed.interval == null || ed.interval <= 0))
+            report.error(location, key, "repeating effect " + ed.id + " needs an interval");
+    }
+
+    private static String readString(JsonReader in, String key, String field, ValidationReport report)
+        throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token != JsonToken.STRING && token != JsonToken.NUMBER && token != JsonToken.BOOLEAN) {
+            report.error(location(in), key, field + " must be a string");
+            in.skipValue();
+            return null;
+        }
+        return token == JsonToken.BOOLEAN ? String.valueOf(in.nextBoolean()) : in.nextString();
+    }
+
+    private static Integer readInt(JsonReader in, String key, String field, ValidationReport report)
+        throws IOException {
+        String location = location(in);
+        return toInt(location, key, field, readNumber(in, key, field, report), report);
+    }
+
+    private static Integer toInt(String location, String key, String field, Double value, ValidationReport report) {
+        if (value == null) return null;
+
+        if (value != Math.rint(value) || value > Integer.MAX_VALUE || value < Integer.MIN_VALUE) {
+            report.error(location, key, field + " must be a whole number, got " + value);
+            return null;
+        }
+        return value.intValue();
+    }
+
+    private static Float readFloat(JsonReader in, String key, String field, ValidationReport report)
+        throws IOException {
+        Double value = readNumber(in, key, field, report);
+        return value != null ? value.floatValue() : null;
+    }
+
+    private static Double readNumber(JsonReader in, String key, String field, ValidationReport report)
+        throws IOException {
+        String location = location(in);
+        return parseNumber(location, key, field, readRaw(in, key, field, report), report);
+    }
+
+    /** Numbers may also be quoted, as Gson accepted them that way. Null for a JSON null or a bad token */
+    private static String readRaw(JsonReader in, String key, String field, ValidationReport report)
+        throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token != JsonToken.NUMBER && token != JsonToken.STRING) {
+            report.error(location(in), key, field + " must be a number");
+            in.skipValue();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    private static Double parseNumber(String location, String key, String field, String raw,
+        ValidationReport report) {
+        if (raw == null) return null;
+        try {
+            double value = Double.parseDouble(raw.trim());
+            if (!Double.isInfinite(value) && !Double.isNaN(value)) return value;
+        } catch (NumberFormatException ignored) {}
+
+        report.error(location, key, field + " is not a number: " + raw);
+        return null;
+    }
+
+    /** Anything that isn't a plain number is a formula, "80%" or "vanilla * 0.6 + 1" */
+    private static boolean isFormula(String raw) {
+        if (raw == null) return false;
+        try {
+            Double.parseDouble(raw.trim());
+            return false;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private static FoodExpression parseFormula(String location, String key, String field, String raw,
+        boolean saturation, ValidationReport report) {
+        try {
+            return FoodExpression.parse(raw, saturation);
+        } catch (IllegalArgumentException e) {
+            report.error(location, key, field + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** "line X column Y", taken from the reader's description as JsonReader keeps its position private */
+    static String location(JsonReader in) {
+        String description = in.toString();
+        int at = description.indexOf(" at ");
+        return at >= 0 ? description.substring(at + 4) : description;
+    }
+}
@@ -0,0 +1,37 @@
+package com.drzenovka.foodrebalanced.core;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+
+/** Streams config entries to JSON one at a time, without building a document tree */
+public class FoodConfigWriter {
+
+    public static void write(Writer out, Gson gson, Map<String, FoodData> entries) throws IOException {
+        JsonWriter writer = new JsonWriter(out);
+        writer.setIndent("  ");
+        writer.beginObject();
+        for (Map.Entry<String, FoodData> entry : entries.entrySet()) {
+            writer.name(entry.getKey());
+            FoodData data = entry.getValue();
+            if (data.hungerExpression == null && data.saturationExpression == null) {
+                gson.toJson(data, FoodData.class, writer);
+            } else {
+                // Formulas aren't fields of their own, they are written back where they were read from
+                JsonObject tree = gson.toJsonTree(data, FoodData.class)
+                    .getAsJsonObject();
+                if (data.hungerExpression != null) tree.addProperty("hunger", data.hungerExpression.source);
+                if (data.saturationExpression != null) {
+                    tree.addProperty("saturation", data.saturationExpression.source);
+                }
+                gson.toJson(tree, writer);
+            }
+        }
+        writer.endObject();
+        writer.flush();
+    }
+}
@@ -0,0 +1,121 @@
+package com.drzenovka.foodrebalanced.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import com.google.gson.JsonObject;
+
+/** Data structure compatible with Gson */
+public class FoodData {
+
+    public String name;
+    public Integer hunger;
+    public Float saturation;
+    public List<EffectData> effects = new ArrayList<>();
+    /** The NBT a variant entry applies to, only on keys with a #label */
+    public JsonObject nbt;
+    /** Decides between rules and explicit entries covering the same item, higher wins */
+    public Integer priority;
+
+    /** Set instead of hunger or saturation when the config gives a formula, such as "80%" or "vanilla + 1" */
+    public transient FoodExpression hungerExpression;
+    public transient FoodExpression saturationExpression;
+    /** What is left of the formulas once resolved for an item, when they depend on the eating player */
+    public transient FoodFormula hungerFormula;
+    public transient FoodFormula saturationFormula;
+
+    /** Effects resolved at load time, not serialized */
+    public transient CompiledEffect[] compiledEffects = CompiledEffect.NONE;
+    /** {@link #nbt} compiled for matching, null if there is none */
+    public transient NbtPattern nbtPattern;
+
+    public FoodData() {}
+
+    public FoodData(int hunger, float saturation) {
+        this.hunger = hunger;
+        this.saturation = saturation;
+    }
+
+    /** Equality of the values that matter in game, the display name is ignored */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FoodData other)) return false;
+        return Objects.equals(hunger, other.hunger) && Objects.equals(saturation, other.saturation)
+            && Objects.equals(effects, other.effects)
+            && Objects.equals(nbt, other.nbt)
+            && Objects.equals(priority, other.priority)
+            && Objects.equals(hungerExpression, other.hungerExpression)
+            && Objects.equals(saturationExpression, other.saturationExpression)
+            && Objects.equals(hungerFormula, other.hungerFormula)
+            && Objects.equals(saturationFormula, other.saturationFormula);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(
+            hunger,
+            saturation,
+            effects,
+            nbt,
+            priority,
+            hungerExpression,
+            saturationExpression,
+            hungerFormula,
+            saturationFormula);
+    }
+
+    public static class EffectData {
+
+        public String id;
+        public Integer duration;
+        public Integer amplifier;
+        public Float chance;
+        /** Seconds after eating before the effect starts, 0 if absent */
+        public Integer delay;
+        /** Seconds between applications of a repeating effect */
+        public Integer interval;
+        /** Total number of applications, 1 if absent */
+        public Integer repeat;
+
+        public EffectData() {}
+
+        public EffectData(String id, int duration, int amplifier, float chance) {
+            this.id = id;
+            this.duration = duration;
+            this.amplifier = amplifier;
+            this.chance = chance;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof EffectData other)) return false;
+            return Objects.equals(id, other.id) && Objects.equals(duration, other.duration)
+                && Objects.equals(amplifier, other.amplifier)
+                && Objects.equals(chance, other.chance)
+                && Objects.equals(delay, other.delay)
+                && Objects.equals(interval, other.interval)
+                && Objects.equals(repeat, other.repeat);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, duration, amplifier, chance, delay, interval, repeat);
+        }
+    }
+
+    public static class EnchantData {
+
+        public String id;
+        public Integer level;
+
+        public EnchantData() {}
+
+        public EnchantData(String id, int level) {
+            this.id = id;
+            this.level = level;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.drzenovka.foodrebalanced.core;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * What the game needs of a table entry: primitive food values and the compiled effects. Entries are built
+ * through a {@link FoodInterner}, so the many entries with equal values share one instance, and
+ * {@link FoodData} stays at the file boundary.
+ */
+public final class FoodEntry {
+
+    /** A full food bar, no food restores more */
+    private static final double MAX_HUNGER = 20;
+
+    public final int hunger;
+    public final float saturation;
+    /** Set when the value depends on the eating player, {@link #hunger} then holds it for empty bars */
+    public final FoodFormula hungerFormula;
+    public final FoodFormula saturationFormula;
+    /** Shared between entries with equal effects, never modify */
+    public final CompiledEffect[] effects;
+
+    public FoodEntry(int hunger, float saturation, CompiledEffect[] effects) {
+        this(hunger, saturation, null, null, effects);
+    }
+
+    public FoodEntry(int hunger, float saturation, FoodFormula hungerFormula, FoodFormula saturationFormula,
+        CompiledEffect[] effects) {
+        this.hunger = hunger;
+        this.saturation = saturation;
+        this.hungerFormula = hungerFormula;
+        this.saturationFormula = saturationFormula;
+        this.effects = effects;
+    }
+
+    /** The runtime entry of a config entry, without interning, missing food values count as 0 */
+    public static FoodEntry of(FoodData data) {
+        return new FoodEntry(
+            data.hunger != null ? data.hunger : 0,
+            data.saturation != null ? data.saturation : 0f,
+            data.hungerFormula,
+            data.saturationFormula,
+            data.compiledEffects);
+    }
+
+    /**
+     * Hunger restored for a player with the given food and saturation levels, between 0 and a full bar. A
+     * formula that isn't finite for these levels, say dividing by an empty food bar, gives the nominal value.
+     */
+    public int hunger(int foodLevel, float saturationLevel) {
+        if (hungerFormula == null) return hunger;
+        double value = hungerFormula.apply(foodLevel, saturationLevel);
+        if (!Double.isFinite(value)) return hunger;
+        // Clamped before the cast, a long out of int range would wrap
+        return (int) Math.round(Math.min(Math.max(value, 0), MAX_HUNGER));
+    }
+
+    /** Saturation modifier for a player with the given food and saturation levels, see {@link #hunger} */
+    public float saturation(int foodLevel, float saturationLevel) {
+        if (saturationFormula == null) return saturation;
+        double value = saturationFormula.apply(foodLevel, saturationLevel);
+        if (!Double.isFinite(value) || value > Float.MAX_VALUE) return saturation;
+        return (float) Math.max(value, 0);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FoodEntry other)) return false;
+        return hunger == other.hunger && Float.compare(saturation, other.saturation) == 0
+            && Objects.equals(hungerFormula, other.hungerFormula)
+            && Objects.equals(saturationFormula, other.saturationFormula)
+            && Arrays.equals(effects, other.effects);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = hunger * 31 + Float.floatToIntBits(saturation);
+        hash = hash * 31 + Objects.hash(hungerFormula, saturationFormula);
+        return hash * 31 + Arrays.hashCode(effects);
+    }
+}
@@ -0,0 +1,751 @@
+package com.drzenovka.foodrebalanced.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A formula for a hunger or saturation value, such as {@code vanilla * 0.6 + 1} or {@code 80%}. Parsed once when
+ * the config is read, then folded per item at load: everything known about the item becomes a constant, and
+ * only what depends on the eating player is left, compiled into a {@link FoodFormula}.
+ * <p>
+ * Numbers, {@code + - * /}, comparisons ({@code == != < <= > >=}, 1 for true and 0 for false), {@code c ? a : b}
+ * and the functions {@code min max clamp abs round floor ceil}. Load time variables are {@code vanilla} (the
+ * item's vanilla value of the field being set), {@code vanillaHunger}, {@code vanillaSaturation}, {@code meta},
+ * {@code hunger} (the entry's own hunger, in saturation formulas only) and {@code namespace}, which can only be
+ * compared with a quoted string. {@code foodLevel} and {@code saturationLevel} are the eating player's.
+ */
+public final class FoodExpression {
+
+    private static final String[] FUNCTIONS = { "min", "max", "clamp", "abs", "round", "floor", "ceil" };
+
+    public final String source;
+    private final Node root;
+
+    private FoodExpression(String source, Node root) {
+        this.source = source;
+        this.root = root;
+    }
+
+    /**
+     * Parse a formula, {@code hunger} is only allowed when the formula is for saturation. A lone percentage is
+     * a share of the vanilla value. Throws IllegalArgumentException describing the first problem.
+     */
+    public static FoodExpression parse(String source, boolean saturation) {
+        String trimmed = source.trim();
+        if (trimmed.endsWith("%")) {
+            double percent;
+            try {
+                percent = Double.parseDouble(trimmed.substring(0, trimmed.length() - 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("not a percentage: " + source);
+            }
+            if (percent < 0 || Double.isNaN(percent) || Double.isInfinite(percent)) {
+                throw new IllegalArgumentException("can't be a negative percentage, got " + source);
+            }
+            return new FoodExpression(source, new Binary('*', new Var("vanilla"), new Num(percent / 100)));
+        }
+
+        Parser parser = new Parser(source, saturation);
+        Node root = parser.parse();
+        if (root.isString()) throw new IllegalArgumentException("a formula must give a number, not a string");
+        return new FoodExpression(source, root);
+    }
+
+    /** Whether the formula refers to the eating player, so it can't be folded into a constant */
+    public boolean isRuntime() {
+        return root.isRuntime();
+    }
+
+    /**
+     * Fold the formula for one item. {@code hunger} is the folded hunger of the entry, needed by saturation
+     * formulas that refer to it. Throws IllegalArgumentException if a part known at load divides by zero or
+     * otherwise isn't a finite number for this item.
+     */
+    public Value fold(double vanilla, Item item, Value hunger) {
+        return new Value(root.fold(vanilla, item, hunger != null ? hunger.node : null));
+    }
+
+    /** What is known about an item at load */
+    public static final class Item {
+
+        final double vanillaHunger;
+        final double vanillaSaturation;
+        final int meta;
+        final String namespace;
+
+        public Item(double vanillaHunger, double vanillaSaturation, int meta, String namespace) {
+            this.vanillaHunger = vanillaHunger;
+            this.vanillaSaturation = vanillaSaturation;
+            this.meta = meta;
+            this.namespace = namespace;
+        }
+    }
+
+    /** A folded formula, a constant or a formula of the player's state */
+    public static final class Value {
+
+        final Node node;
+
+        Value(Node node) {
+            this.node = node;
+        }
+
+        public static Value of(double constant) {
+            return new Value(new Num(constant));
+        }
+
+        public boolean isConstant() {
+            return node instanceof Num;
+        }
+
+        public double constant() {
+            return node instanceof Num num ? num.value : Double.NaN;
+        }
+
+        /** The compiled formula, null for a constant */
+        public FoodFormula formula() {
+            return isConstant() ? null : new FoodFormula(node.toString(), node.compile());
+        }
+
+        /** The value for a player with empty food and saturation bars, used where no player is involved */
+        public double nominal() {
+            return isConstant() ? constant() : node.compile()
+                .apply(0, 0f);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof FoodExpression other && source.equals(other.source);
+    }
+
+    @Override
+    public int hashCode() {
+        return source.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    private abstract static class Node {
+
+        boolean isString() {
+            return false;
+        }
+
+        abstract boolean isRuntime();
+
+        abstract Node fold(double vanilla, Item item, Node hunger);
+
+        /** Only called on folded nodes */
+        abstract FoodFormula.Op compile();
+    }
+
+    /** A folded constant, which must be a finite number for the value to mean anything */
+    private static Num finite(double value, Node source) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException(source + " is not a finite number");
+        }
+        return new Num(value);
+    }
+
+    private static final class Num extends Node {
+
+        final double value;
+
+        Num(double value) {
+            this.value = value;
+        }
+
+        @Override
+        boolean isRuntime() {
+            return false;
+        }
+
+        @Override
+        Node fold(double vanilla, Item item, Node hunger) {
+            return this;
+        }
+
+        @Override
+        FoodFormula.Op compile() {
+            double value = this.value;
+            return (food, saturation) -> value;
+        }
+
+        @Override
+        public String toString() {
+            return value == (long) value ? String.valueOf((long) value) : String.valueOf(value);
+        }
+    }
+
+    private static final class Str extends Node {
+
+        final String value;
+
+        Str(String value) {
+            this.value = value;
+        }
+
+        @Override
+        boolean isString() {
+            return true;
+        }
+
+        @Override
+        boolean isRuntime() {
+            return false;
+        }
+
+        @Override
+        Node fold(double vanilla, Item item, Node hunger) {
+            return this;
+        }
+
+        @Override
+        FoodFormula.Op compile() {
+            throw new IllegalStateException("strings are folded away at load");
+        }
+    }
+
+    private static final class Var extends Node {
+
+        final String name;
+
+        Var(String name) {
+            this.name = name;
+        }
+
+        @Override
+        boolean isString() {
+            return name.equals("namespace");
+        }
+
+        @Override
+        boolean isRuntime() {
+            return name.equals("foodLevel") || name.equals("saturationLevel");
+        }
+
+        @Override
+        Node fold(double vanilla, Item item, Node hunger) {
+            switch (name) {
+                case "vanilla":
+                    return new Num(vanilla);
+                case "vanillaHunger":
+                    return new Num(item.vanillaHunger);
+                case "vanillaSaturation":
+                    return new Num(item.vanillaSaturation);
+                case "meta":
+                    return new Num(item.meta);
+                case "namespace":
+                    return new Str(item.namespace);
+                case "hunger":
+                    return hunger != null ? hunger : new Num(item.vanillaHunger);
+                default:
+                    return this;
+            }
+        }
+
+        @Override
+        FoodFormula.Op compile() {
+            if (name.equals("foodLevel")) return (food, saturation) -> food;
+            return (food, saturation) -> saturation;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private static final class Negate extends Node {
+
+        final Node operand;
+
+        Negate(Node operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        boolean isRuntime() {
+            return operand.isRuntime();
+        }
+
+        @Override
+        Node fold(double vanilla, Item item, Node hunger) {
+            Node folded = operand.fold(vanilla, item, hunger);
+            return folded instanceof Num num ? new Num(-num.value) : new Negate(folded);
+        }
+
+        @Override
+        FoodFormula.Op compile() {
+            FoodFormula.Op a = operand.compile();
+            return (food, saturation) -> -a.apply(food, saturation);
+        }
+
+        @Override
+        public String toString() {
+            return "(-" + operand + ")";
+        }
+    }
+
+    private static final class Binary extends Node {
+
+        /** One character per operator: = for ==, ! for !=, l for <=, g for >= */
+        final char op;
+        final Node left;
+        final Node right;
+
+        Binary(char op, Node left, Node right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean isRuntime() {
+            return left.isRuntime() || right.isRuntime();
+        }
+
+        @Override
+        Node fold(double vanilla, Item item, Node hunger) {
+            Node a = left.fold(vanilla, item, hunger);
+            Node b = right.fold(vanilla, item, hunger);
+            if (a instanceof Str x && b instanceof Str y) {
+                boolean equal = x.value.equals(y.value);
+                return new Num((op == '=') == equal ? 1 : 0);
+            }
+            if (op == '/' && b instanceof Num y && y.value == 0) {
+                throw new IllegalArgumentException(new Binary(op, a, b) + " divides by zero");
+            }
+            if (a instanceof Num x && b instanceof Num y) return finite(apply(op, x.value, y.value), this);
+            return new Binary(op, a, b);
+        }
+
+        static double apply(char op, double a, double b) {
+            switch (op) {
+                case '+':
+                    return a + b;
+                case '-':
+                    return a - b;
+                case '*':
+                    return a * b;
+                case '/':
+                    return a / b;
+                case '=':
+                    return a == b ? 1 : 0;
+                case '!':
+                    return a != b ? 1 : 0;
+                case '<':
+                    return a < b ? 1 : 0;
+                case 'l':
+                    return a <= b ? 1 : 0;
+                case '>':
+                    return a > b ? 1 : 0;
+                default:
+                    return a >= b ? 1 : 0;
+            }
+        }
+
+        @Override
+        FoodFormula.Op compile() {
+            FoodFormula.Op a = left.compile();
+            FoodFormula.Op b = right.compile();
+            switch (op) {
+                case '+':
+                    return (food, saturation) -> a.apply(food, saturation) + b.apply(food, saturation);
+                case '-':
+                    return (food, saturation) -> a.apply(food, saturation) - b.apply(food, saturation);
+                case '*':
+                    return (food, saturation) -> a.apply(food, saturation) * b.apply(food, saturation);
+                case '/':
+                    return (food, saturation) -> a.apply(food, saturation) / b.apply(food, saturation);
+                default:
+                    char op = this.op;
+                    return (food, saturation) -> apply(op, a.apply(food, saturation), b.apply(food, saturation));
+            }
+        }
+
+        @Override
+        public String toString() {
+            String symbol;
+            switch (op) {
+                case '=':
+                    symbol = "==";
+                    break;
+                case '!':
+                    symbol = "!=";
+                    break;
+                case 'l':
+                    symbol = "<=";
+                    break;
+                case 'g':
+                    symbol = ">=";
+                    break;
+                default:
+                    symbol = String.valueOf(op);
+            }
+            return "(" + left + " " + symbol + " " + right + ")";
+        }
+    }
+
+    private static final class Conditional extends Node {
+
+        final Node condition;
+        final Node then;
+        final Node otherwise;
+
+        Conditional(Node condition, Node then, Node otherwise) {
+            this.condition = condition;
+            this.then = then;
+            this.otherwise = otherwise;
+        }
+
+        @Override
+        boolean isRuntime() {
+            return condition.isRuntime() || then.isRuntime() || otherwise.isRuntime();
+        }
+
+        @Override
+        Node fold(double vanilla, Item item, Node hunger) {
+            Node c = condition.fold(vanilla, item, hunger);
+            if (c instanceof Num num) {
+                return (num.value != 0 ? then : otherwise).fold(vanilla, item, hunger);
+            }
+            return new Conditional(c, then.fold(vanilla, item, hunger), otherwise.fold(vanilla, item, hunger));
+        }
+
+        @Override
+        FoodFormula.Op compile() {
+            FoodFormula.Op c = condition.compile();
+            FoodFormula.Op a = then.compile();
+            FoodFormula.Op b = otherwise.compile();
+            return (food, saturation) -> c.apply(food, saturation) != 0 ? a.apply(food, saturation)
+                : b.apply(food, saturation);
+        }
+
+        @Override
+        public String toString() {
+            return "(" + condition + " ? " + then + " : " + otherwise + ")";
+        }
+    }
+
+    private static final class Call extends Node {
+
+        final String function;
+        final Node[] args;
+
+        Call(String function, Node[] args) {
+            this.function = function;
+            this.args = args;
+        }
+
+        @Override
+        boolean isRuntime() {
+            for (Node arg : args) {
+                if (arg.isRuntime()) return true;
+            }
+            return false;
+        }
+
+        @Override
+        Node fold(double vanilla, Item item, Node hunger) {
+            Node[] folded = new Node[args.length];
+            boolean constant = true;
+            for (int i = 0; i < args.length; i++) {
+                folded[i] = args[i].fold(vanilla, item, hunger);
+                constant &= folded[i] instanceof Num;
+            }
+            if (!constant) return new Call(function, folded);
+
+            double[] values = new double[folded.length];
+            for (int i = 0; i < folded.length; i++) values[i] = ((Num) folded[i]).value;
+            return finite(apply(function, values), this);
+        }
+
+        static double apply(String function, double[] v) {
+            switch (function) {
+                case "min":
+                    return Math.min(v[0], v[1]);
+                case "max":
+                    return Math.max(v[0], v[1]);
+                case "clamp":
+                    return Math.max(v[1], Math.min(v[2], v[0]));
+                case "abs":
+                    return Math.abs(v[0]);
+                case "round":
+                    return Math.round(v[0]);
+                case "floor":
+                    return Math.floor(v[0]);
+                default:
+                    return Math.ceil(v[0]);
+            }
+        }
+
+        @Override
+        FoodFormula.Op compile() {
+            FoodFormula.Op[] ops = new FoodFormula.Op[args.length];
+            for (int i = 0; i < args.length; i++) ops[i] = args[i].compile();
+            FoodFormula.Op a = ops[0];
+            switch (function) {
+                case "min":
+                    return (food, saturation) -> Math.min(a.apply(food, saturation), ops[1].apply(food, saturation));
+                case "max":
+                    return (food, saturation) -> Math.max(a.apply(food, saturation), ops[1].apply(food, saturation));
+                case "clamp":
+                    return (food, saturation) -> Math.max(
+                        ops[1].apply(food, saturation),
+                        Math.min(ops[2].apply(food, saturation), a.apply(food, saturation)));
+                case "abs":
+                    return (food, saturation) -> Math.abs(a.apply(food, saturation));
+                case "round":
+                    return (food, saturation) -> Math.round(a.apply(food, saturation));
+                case "floor":
+                    return (food, saturation) -> Math.floor(a.apply(food, saturation));
+                default:
+                    return (food, saturation) -> Math.ceil(a.apply(food, saturation));
+            }
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder(function).append('(');
+            for (int i = 0; i < args.length; i++) text.append(i > 0 ? ", " : "")
+                .append(args[i]);
+            return text.append(')')
+                .toString();
+        }
+
+        static int arity(String function) {
+            switch (function) {
+                case "min":
+                case "max":
+                    return 2;
+                case "clamp":
+                    return 3;
+                default:
+                    return 1;
+            }
+        }
+    }
+
+    /** Recursive descent over the source, lowest precedence first */
+    private static final class Parser {
+
+        private final String source;
+        private final boolean saturation;
+        private int pos;
+
+        Parser(String source, boolean saturation) {
+            this.source = source;
+            this.saturation = saturation;
+        }
+
+        Node parse() {
+            Node node = conditional();
+            skipSpaces();
+            if (pos < source.length()) throw error("unexpected '" + source.charAt(pos) + "'");
+            return node;
+        }
+
+        private Node conditional() {
+            Node condition = comparison();
+            if (!accept("?")) return condition;
+
+            number(condition, "?");
+            Node then = conditional();
+            expect(":");
+            Node otherwise = conditional();
+            number(then, "?");
+            number(otherwise, ":");
+            return new Conditional(condition, then, otherwise);
+        }
+
+        private Node comparison() {
+            Node left = additive();
+            char op;
+            if (accept("==")) op = '=';
+            else if (accept("!=")) op = '!';
+            else if (accept("<=")) op = 'l';
+            else if (accept(">=")) op = 'g';
+            else if (accept("<")) op = '<';
+            else if (accept(">")) op = '>';
+            else return left;
+
+            Node right = additive();
+            if (op == '=' || op == '!') {
+                if (left.isString() != right.isString()) throw error("can't compare a string with a number");
+            } else {
+                number(left, "comparison");
+                number(right, "comparison");
+            }
+            return new Binary(op, left, right);
+        }
+
+        private Node additive() {
+            Node node = multiplicative();
+            while (true) {
+                char op;
+                if (accept("+")) op = '+';
+                else if (accept("-")) op = '-';
+                else return node;
+
+                Node right = multiplicative();
+                number(node, String.valueOf(op));
+                number(right, String.valueOf(op));
+                node = new Binary(op, node, right);
+            }
+        }
+
+        private Node multiplicative() {
+            Node node = unary();
+            while (true) {
+                char op;
+                if (accept("*")) op = '*';
+                else if (accept("/")) op = '/';
+                else return node;
+
+                Node right = unary();
+                number(node, String.valueOf(op));
+                number(right, String.valueOf(op));
+                node = new Binary(op, node, right);
+            }
+        }
+
+        private Node unary() {
+            if (accept("-")) {
+                Node operand = unary();
+                number(operand, "-");
+                return new Negate(operand);
+            }
+            return primary();
+        }
+
+        private Node primary() {
+            skipSpaces();
+            if (pos >= source.length()) throw error("unexpected end of formula");
+
+            char c = source.charAt(pos);
+            if (accept("(")) {
+                Node node = conditional();
+                expect(")");
+                return node;
+            }
+            if (c == '\'' || c == '"') return string(c);
+            if (Character.isDigit(c) || c == '.') return number();
+            if (Character.isLetter(c)) return identifier();
+            throw error("unexpected '" + c + "'");
+        }
+
+        private Node string(char quote) {
+            int end = source.indexOf(quote, pos + 1);
+            if (end < 0) throw error("unterminated string");
+            String value = source.substring(pos + 1, end);
+            pos = end + 1;
+            return new Str(value);
+        }
+
+        private Node number() {
+            int start = pos;
+            while (pos < source.length() && (Character.isDigit(source.charAt(pos)) || source.charAt(pos) == '.')) {
+                pos++;
+            }
+            if (pos < source.length() && (source.charAt(pos) == 'e' || source.charAt(pos) == 'E')) {
+                pos++;
+                if (pos < source.length() && (source.charAt(pos) == '+' || source.charAt(pos) == '-')) pos++;
+                while (pos < source.length() && Character.isDigit(source.charAt(pos))) pos++;
+            }
+            double value;
+            try {
+                value = Double.parseDouble(source.substring(start, pos));
+            } catch (NumberFormatException e) {
+                pos = start;
+                throw error("bad number");
+            }
+            if (Double.isInfinite(value)) {
+                pos = start;
+                throw error("number too large");
+            }
+            return new Num(value);
+        }
+
+        private Node identifier() {
+            int start = pos;
+            while (pos < source.length() && Character.isLetterOrDigit(source.charAt(pos))) pos++;
+            String name = source.substring(start, pos);
+
+            if (accept("(")) {
+                String function = name.toLowerCase(Locale.ROOT);
+                if (!isFunction(function)) throw error("unknown function " + name);
+
+                List<Node> args = new ArrayList<>();
+                if (!accept(")")) {
+                    do {
+                        Node arg = conditional();
+                        number(arg, function);
+                        args.add(arg);
+                    } while (accept(","));
+                    expect(")");
+                }
+                if (args.size() != Call.arity(function)) {
+                    throw error(function + " takes " + Call.arity(function) + " arguments, got " + args.size());
+                }
+                return new Call(function, args.toArray(new Node[0]));
+            }
+
+            switch (name) {
+                case "vanilla":
+                case "vanillaHunger":
+                case "vanillaSaturation":
+                case "meta":
+                case "namespace":
+                case "foodLevel":
+                case "saturationLevel":
+                    return new Var(name);
+                case "hunger":
+                    if (!saturation) throw error("hunger can only be used in a saturation formula");
+                    return new Var(name);
+                default:
+                    pos = start;
+                    throw error("unknown variable " + name);
+            }
+        }
+
+        private static boolean isFunction(String name) {
+            for (String function : FUNCTIONS) {
+                if (function.equals(name)) return true;
+            }
+            return false;
+        }
+
+        /** Strings may only be compared for equality */
+        private void number(Node node, String where) {
+            if (node.isString()) throw error("strings can only be compared with == or !=, not used with " + where);
+        }
+
+        private boolean accept(String token) {
+            skipSpaces();
+            if (!source.startsWith(token, pos)) return false;
+            // A lone < or > must not swallow the first character of <= or >=, and = alone isn't an operator
+            if (token.length() == 1 && (token.equals("<") || token.equals(">"))
+                && source.startsWith("=", pos + 1)) return false;
+            pos += token.length();
+            return true;
+        }
+
+        private void expect(String token) {
+            if (!accept(token)) throw error("expected '" + token + "'");
+        }
+
+        private void skipSpaces() {
+            while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) pos++;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at column " + (pos + 1) + " of \"" + source + "\"");
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.drzenovka.foodrebalanced.core;
+
+/**
+ * A hunger or saturation value that depends on the eating player, what is left of a {@link FoodExpression}
+ * once everything known at load has been folded in. It is compiled into nested lambdas, so evaluating it
+ * is a few direct calls with no parsing or tree walking. Equal when the folded formulas read the same.
+ */
+public final class FoodFormula {
+
+    /** Compiled form of a folded expression */
+    interface Op {
+
+        double apply(int foodLevel, float saturationLevel);
+    }
+
+    /** The folded formula, fully parenthesized */
+    public final String text;
+    private final Op op;
+
+    FoodFormula(String text, Op op) {
+        this.text = text;
+        this.op = op;
+    }
+
+    /** The value for a player with the given food and saturation levels */
+    public double apply(int foodLevel, float saturationLevel) {
+        return op.apply(foodLevel, saturationLevel);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof FoodFormula other && text.equals(other.text);
+    }
+
+    @Override
+    public int hashCode() {
+        return text.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
@@ -0,0 +1,232 @@
+package com.drzenovka.foodrebalanced.core;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Lookup table compiled from the string keyed config, indexed by numeric item id and meta.
+ * Each item gets a row holding a wildcard slot (meta -1), a dense array for low metas and a
+ * sorted sparse array for the rest, so lookups never allocate or touch strings. NBT variants
+ * live in a separate per-row array that is empty for almost every item.
+ */
+public class FoodIndex {
+
+    /** Metas below this are stored in a plain array, anything above goes to the sparse table. */
+    private static final int DENSE_META_LIMIT = 64;
+    private static final Row[] NO_ROWS = new Row[0];
+    private static final long NO_SLOT = Long.MIN_VALUE;
+
+    private Row[] rows = NO_ROWS;
+
+    /** Compile the index for a set of config entries, skipping keys whose item isn't registered */
+    public static FoodIndex build(Map<String, FoodData> entries, ItemRegistry items, FoodInterner interner) {
+        FoodIndex index = new FoodIndex();
+        for (Map.Entry<String, FoodData> entry : entries.entrySet()) {
+            String key = entry.getKey();
+            long slot = slot(key, items);
+            if (slot == NO_SLOT) continue;
+
+            FoodData data = entry.getValue();
+            if (FoodKeys.isVariant(key)) {
+                if (data.nbtPattern != null) {
+                    index.putVariant(itemIdOf(slot), metaOf(slot), data.nbtPattern, interner.entry(data));
+                }
+            } else {
+                index.put(itemIdOf(slot), metaOf(slot), interner.entry(data));
+            }
+        }
+        return index;
+    }
+
+    /** Compile the index for runtime entries, which never include NBT variants */
+    public static FoodIndex compile(Map<String, FoodEntry> entries, ItemRegistry items) {
+        FoodIndex index = new FoodIndex();
+        for (Map.Entry<String, FoodEntry> entry : entries.entrySet()) {
+            long slot = FoodKeys.isVariant(entry.getKey()) ? NO_SLOT : slot(entry.getKey(), items);
+            if (slot != NO_SLOT) index.put(itemIdOf(slot), metaOf(slot), entry.getValue());
+        }
+        return index;
+    }
+
+    /** Item id and meta of a key packed into a long, or {@link #NO_SLOT} */
+    private static long slot(String key, ItemRegistry items) {
+        String name = FoodKeys.itemName(key);
+        if (name == null) return NO_SLOT;
+
+        int meta;
+        try {
+            meta = FoodKeys.meta(key);
+        } catch (NumberFormatException e) {
+            System.err.println("[FoodRebalanced] Invalid meta in food key: " + key);
+            return NO_SLOT;
+        }
+
+        int itemId = items.getItemId(name);
+        if (itemId < 0) return NO_SLOT;
+        return (long) itemId << 32 | meta & 0xFFFFFFFFL;
+    }
+
+    private static int itemIdOf(long slot) {
+        return (int) (slot >>> 32);
+    }
+
+    private static int metaOf(long slot) {
+        return (int) slot;
+    }
+
+    /** Returns the entry for this exact meta, falling back to the wildcard entry of the item. */
+    public FoodEntry get(int itemId, int meta) {
+        if (itemId < 0 || itemId >= rows.length) return null;
+        Row row = rows[itemId];
+        if (row == null) return null;
+
+        FoodEntry data = row.get(meta);
+        return data != null ? data : row.wildcard;
+    }
+
+    /** Returns the entry for this exact meta only */
+    public FoodEntry getExact(int itemId, int meta) {
+        if (itemId < 0 || itemId >= rows.length) return null;
+        Row row = rows[itemId];
+        return row != null ? row.get(meta) : null;
+    }
+
+    /** Returns the wildcard (meta -1) entry of the item */
+    public FoodEntry getWildcard(int itemId) {
+        if (itemId < 0 || itemId >= rows.length) return null;
+        Row row = rows[itemId];
+        return row != null ? row.wildcard : null;
+    }
+
+    /**
+     * Returns the NBT variant matching the tag, exact meta before wildcard, or null. Items without
+     * variants return straight away, without fingerprinting anything.
+     */
+    public <T> FoodEntry getVariant(int itemId, int meta, T tag, NbtFingerprinter<T> fingerprinter) {
+        if (itemId < 0 || itemId >= rows.length) return null;
+        Row row = rows[itemId];
+        if (row == null || row.variants.length == 0) return null;
+
+        FoodEntry wildcard = null;
+        for (Variant variant : row.variants) {
+            if (variant.meta != meta && (variant.meta != FoodKeys.ANY_META || wildcard != null)) continue;
+            if (fingerprinter.fingerprint(tag, variant.pattern.keys) != variant.pattern.print) continue;
+
+            if (variant.meta == meta) return variant.data;
+            wildcard = variant.data;
+        }
+        return wildcard;
+    }
+
+    /** Only used while building, a published index is never modified */
+    void put(int itemId, int meta, FoodEntry data) {
+        if (itemId >= 0) row(itemId).put(meta, data);
+    }
+
+    void putVariant(int itemId, int meta, NbtPattern pattern, FoodEntry data) {
+        if (itemId >= 0) row(itemId).putVariant(meta, pattern, data);
+    }
+
+    private Row row(int itemId) {
+        if (itemId >= rows.length) rows = Arrays.copyOf(rows, Math.max(itemId + 1, rows.length * 2));
+
+        Row row = rows[itemId];
+        if (row == null) rows[itemId] = row = new Row();
+        return row;
+    }
+
+    /** Copy of this index with one entry added, rows other than the changed one are shared */
+    public FoodIndex with(int itemId, int meta, FoodEntry data) {
+        FoodIndex copy = new FoodIndex();
+        copy.rows = Arrays.copyOf(rows, Math.max(rows.length, itemId + 1));
+
+        Row row = copy.rows[itemId];
+        copy.rows[itemId] = row = row != null ? row.copy() : new Row();
+        row.put(meta, data);
+        return copy;
+    }
+
+    private static class Variant {
+
+        final int meta;
+        final NbtPattern pattern;
+        final FoodEntry data;
+
+        Variant(int meta, NbtPattern pattern, FoodEntry data) {
+            this.meta = meta;
+            this.pattern = pattern;
+            this.data = data;
+        }
+    }
+
+    private static class Row {
+
+        private static final FoodEntry[] NO_DATA = new FoodEntry[0];
+        private static final int[] NO_METAS = new int[0];
+        private static final Variant[] NO_VARIANTS = new Variant[0];
+
+        FoodEntry wildcard;
+        FoodEntry[] dense = NO_DATA;
+        int[] sparseMetas = NO_METAS;
+        FoodEntry[] sparse = NO_DATA;
+        Variant[] variants = NO_VARIANTS;
+
+        Row copy() {
+            Row copy = new Row();
+            copy.wildcard = wildcard;
+            copy.dense = dense.clone();
+            copy.sparseMetas = sparseMetas.clone();
+            copy.sparse = sparse.clone();
+            copy.variants = variants;
+            return copy;
+        }
+
+        /** Variants looking at the same keys share one keys array, so a tag is fingerprinted once per set */
+        void putVariant(int meta, NbtPattern pattern, FoodEntry data) {
+            for (Variant variant : variants) {
+                if (Arrays.equals(variant.pattern.keys, pattern.keys)) {
+                    pattern = pattern.withKeys(variant.pattern.keys);
+                    break;
+                }
+            }
+
+            variants = Arrays.copyOf(variants, variants.length + 1);
+            variants[variants.length - 1] = new Variant(meta, pattern, data);
+        }
+
+        FoodEntry get(int meta) {
+            if (meta < 0) return null;
+            if (meta < dense.length) return dense[meta];
+
+            int i = Arrays.binarySearch(sparseMetas, meta);
+            return i >= 0 ? sparse[i] : null;
+        }
+
+        void put(int meta, FoodEntry data) {
+            if (meta < 0) {
+                wildcard = data;
+            } else if (meta < DENSE_META_LIMIT) {
+                if (meta >= dense.length) dense = Arrays.copyOf(dense, meta + 1);
+                dense[meta] = data;
+            } else {
+                int i = Arrays.binarySearch(sparseMetas, meta);
+                if (i >= 0) {
+                    sparse[i] = data;
+                    return;
+                }
+
+                i = -i - 1;
+                int[] metas = new int[sparseMetas.length + 1];
+                FoodEntry[] values = new FoodEntry[sparse.length + 1];
+                System.arraycopy(sparseMetas, 0, metas, 0, i);
+                System.arraycopy(sparse, 0, values, 0, i);
+                metas[i] = meta;
+                values[i] = data;
+                System.arraycopy(sparseMetas, i, metas, i + 1, sparseMetas.length - i);
+                System.arraycopy(sparse, i, values, i + 1, sparse.length - i);
+                sparseMetas = metas;
+                sparse = values;
+            }
+        }
+    }
+}
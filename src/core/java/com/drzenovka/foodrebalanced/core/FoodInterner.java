@@ -0,0 +1,93 @@
+package com.drzenovka.foodrebalanced.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deduplicates what a load produces: equal runtime entries, effect arrays, effect lists and strings become
+ * one shared instance. Most foods have no effects or one of a handful of common ones, so a large pack ends up
+ * with a few hundred distinct entries. One interner per load, used from a single thread and then dropped.
+ */
+public class FoodInterner {
+
+    private final Map<FoodEntry, FoodEntry> entries = new HashMap<>();
+    private final Map<List<CompiledEffect>, CompiledEffect[]> compiled = new HashMap<>();
+    private final Map<List<FoodData.EffectData>, List<FoodData.EffectData>> effectLists = new HashMap<>();
+    private final Map<Object, Object> values = new HashMap<>();
+
+    /** The shared runtime entry for a config entry */
+    public FoodEntry entry(FoodData data) {
+        FoodEntry entry = FoodEntry.of(data);
+        return entry(entry.hunger, entry.saturation, entry.hungerFormula, entry.saturationFormula, entry.effects);
+    }
+
+    public FoodEntry entry(int hunger, float saturation, CompiledEffect[] effects) {
+        return entry(hunger, saturation, null, null, effects);
+    }
+
+    public FoodEntry entry(int hunger, float saturation, FoodFormula hungerFormula, FoodFormula saturationFormula,
+        CompiledEffect[] effects) {
+        FoodEntry entry = new FoodEntry(
+            hunger,
+            saturation,
+            value(hungerFormula),
+            value(saturationFormula),
+            effects(effects));
+        FoodEntry shared = entries.putIfAbsent(entry, entry);
+        return shared != null ? shared : entry;
+    }
+
+    /** The shared copy of an effect array, with the effects themselves shared too */
+    public CompiledEffect[] effects(CompiledEffect[] effects) {
+        if (effects.length == 0) return CompiledEffect.NONE;
+
+        List<CompiledEffect> key = Arrays.asList(effects);
+        CompiledEffect[] shared = compiled.get(key);
+        if (shared != null) return shared;
+
+        shared = new CompiledEffect[effects.length];
+        for (int i = 0; i < effects.length; i++) shared[i] = value(effects[i]);
+        compiled.put(Arrays.asList(shared), shared);
+        return shared;
+    }
+
+    /**
+     * Shrink a parsed config entry in place: empty and equal effect lists become one shared immutable list,
+     * effect ids, saturation boxes and formulas are shared and compiled effects interned. Values stay equal.
+     */
+    public void slim(FoodData data) {
+        data.saturation = value(data.saturation);
+        data.hungerExpression = value(data.hungerExpression);
+        data.saturationExpression = value(data.saturationExpression);
+        data.compiledEffects = effects(data.compiledEffects);
+
+        if (data.effects == null) return;
+        if (data.effects.isEmpty()) {
+            data.effects = Collections.emptyList();
+            return;
+        }
+        List<FoodData.EffectData> shared = effectLists.get(data.effects);
+        if (shared == null) {
+            List<FoodData.EffectData> copy = new ArrayList<>(data.effects.size());
+            for (FoodData.EffectData effect : data.effects) {
+                effect.id = value(effect.id);
+                effect.chance = value(effect.chance);
+                copy.add(effect);
+            }
+            shared = Collections.unmodifiableList(copy);
+            effectLists.put(shared, shared);
+        }
+        data.effects = shared;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T value(T value) {
+        if (value == null) return null;
+        Object shared = values.putIfAbsent(value, value);
+        return shared != null ? (T) shared : value;
+    }
+}
@@ -0,0 +1,59 @@
+package com.drzenovka.foodrebalanced.core;
+
+/**
+ * Config keys have the form {@code modid:item:meta}, meta -1 matching any meta. Entries that only apply to
+ * stacks with certain NBT add a label, {@code modid:item:meta#label}. Rules cover many items at once:
+ * {@code *} for every food, {@code modid:*} for a mod's foods and {@code ore:name} for an ore dictionary name.
+ */
+public class FoodKeys {
+
+    /** Meta value of wildcard entries */
+    public static final int ANY_META = -1;
+    public static final char VARIANT_SEPARATOR = '#';
+    public static final String ALL_FOODS = "*";
+    public static final String NAMESPACE_SUFFIX = ":*";
+    public static final String ORE_PREFIX = "ore:";
+
+    public static String getKey(String id, int meta) {
+        if (id == null) return null;
+        return id + ":" + meta;
+    }
+
+    /** The registry name part of a key, or null if the key has no meta */
+    public static String itemName(String key) {
+        int split = key.lastIndexOf(':', end(key) - 1);
+        return split > 0 ? key.substring(0, split) : null;
+    }
+
+    /** The meta part of a key, throws NumberFormatException if it isn't a number */
+    public static int meta(String key) {
+        int end = end(key);
+        return Integer.parseInt(key.substring(key.lastIndexOf(':', end - 1) + 1, end));
+    }
+
+    /** Whether the key is a rule rather than a single item */
+    public static boolean isRule(String key) {
+        return key.equals(ALL_FOODS) || key.endsWith(NAMESPACE_SUFFIX) || key.startsWith(ORE_PREFIX);
+    }
+
+    /** The mod namespace an entry belongs to, null for rules that span namespaces */
+    public static String namespace(String key) {
+        if (key.equals(ALL_FOODS) || key.startsWith(ORE_PREFIX)) return null;
+        if (key.endsWith(NAMESPACE_SUFFIX)) return key.substring(0, key.length() - NAMESPACE_SUFFIX.length());
+
+        String item = itemName(key);
+        int split = item != null ? item.indexOf(':') : -1;
+        return split > 0 ? item.substring(0, split) : "minecraft";
+    }
+
+    /** Whether the key names an NBT variant */
+    public static boolean isVariant(String key) {
+        return key.indexOf(VARIANT_SEPARATOR) >= 0;
+    }
+
+    /** Where the id:meta part of a key ends */
+    private static int end(String key) {
+        int variant = key.indexOf(VARIANT_SEPARATOR);
+        return variant >= 0 ? variant : key.length();
+    }
+}
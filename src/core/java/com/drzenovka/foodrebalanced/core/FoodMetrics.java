@@ -0,0 +1,178 @@
+package com.drzenovka.foodrebalanced.core;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.ObjectName;
+
+/**
+ * Runtime counters and latency histograms for the mod. Counters are {@link LongAdder}s, so the eat
+ * path only ever does uncontended striped adds. Read through /fr stats or JMX.
+ */
+public class FoodMetrics implements FoodMetricsMBean {
+
+    public static final String OBJECT_NAME = "com.drzenovka.foodrebalanced:type=FoodMetrics";
+
+    public static final LongAdder EAT_EVENTS = new LongAdder();
+    public static final LongAdder NBT_VARIANT_HITS = new LongAdder();
+    public static final LongAdder EXACT_HITS = new LongAdder();
+    public static final LongAdder META_FALLBACK_HITS = new LongAdder();
+    public static final LongAdder MISSES = new LongAdder();
+    public static final LongAdder EFFECTS_APPLIED = new LongAdder();
+
+    public static final LatencyHistogram EAT = new LatencyHistogram();
+    public static final LatencyHistogram LOAD = new LatencyHistogram();
+    public static final LatencyHistogram SAVE = new LatencyHistogram();
+    public static final LatencyHistogram RELOAD = new LatencyHistogram();
+    public static final LatencyHistogram EXHAUSTION = new LatencyHistogram();
+
+    private static final FoodMetrics INSTANCE = new FoodMetrics();
+
+    /** Expose the metrics over JMX, safe to call more than once */
+    public static void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                .registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException ignored) {} catch (Exception e) {
+            System.err.println("[FoodRebalanced] Could not register metrics MBean: " + e.getMessage());
+        }
+    }
+
+    /** Human readable summary, one line per group */
+    public static List<String> describe() {
+        List<String> lines = new ArrayList<>();
+        lines.add("Eat events: " + EAT_EVENTS.sum() + ", effects applied: " + EFFECTS_APPLIED.sum());
+        lines.add(
+            "Lookups: " + NBT_VARIANT_HITS.sum()
+                + " nbt variant, "
+                + EXACT_HITS.sum()
+                + " exact, "
+                + META_FALLBACK_HITS.sum()
+                + " meta fallback, "
+                + MISSES.sum()
+                + " misses");
+        lines.add(describe("Eat handler", EAT, TimeUnit.MICROSECONDS, "us"));
+        lines.add(describe("Load", LOAD, TimeUnit.MILLISECONDS, "ms"));
+        lines.add(describe("Save", SAVE, TimeUnit.MILLISECONDS, "ms"));
+        lines.add(describe("Reload", RELOAD, TimeUnit.MILLISECONDS, "ms"));
+        lines.add(describe("Exhaustion tick", EXHAUSTION, TimeUnit.MICROSECONDS, "us"));
+        return lines;
+    }
+
+    private static String describe(String label, LatencyHistogram histogram, TimeUnit unit, String suffix) {
+        return label + ": "
+            + histogram.count()
+            + " samples, mean "
+            + unit.convert(histogram.meanNanos(), TimeUnit.NANOSECONDS)
+            + suffix
+            + ", p99 < "
+            + unit.convert(histogram.percentileNanos(0.99), TimeUnit.NANOSECONDS)
+            + suffix
+            + ", max "
+            + unit.convert(histogram.maxNanos(), TimeUnit.NANOSECONDS)
+            + suffix;
+    }
+
+    public static void resetAll() {
+        EAT_EVENTS.reset();
+        NBT_VARIANT_HITS.reset();
+        EXACT_HITS.reset();
+        META_FALLBACK_HITS.reset();
+        MISSES.reset();
+        EFFECTS_APPLIED.reset();
+        EAT.reset();
+        LOAD.reset();
+        SAVE.reset();
+        RELOAD.reset();
+        EXHAUSTION.reset();
+    }
+
+    @Override
+    public long getEatEvents() {
+        return EAT_EVENTS.sum();
+    }
+
+    @Override
+    public long getNbtVariantHits() {
+        return NBT_VARIANT_HITS.sum();
+    }
+
+    @Override
+    public long getExactHits() {
+        return EXACT_HITS.sum();
+    }
+
+    @Override
+    public long getMetaFallbackHits() {
+        return META_FALLBACK_HITS.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return MISSES.sum();
+    }
+
+    @Override
+    public long getEffectsApplied() {
+        return EFFECTS_APPLIED.sum();
+    }
+
+    @Override
+    public long getEatMeanNanos() {
+        return EAT.meanNanos();
+    }
+
+    @Override
+    public long getEatP99Nanos() {
+        return EAT.percentileNanos(0.99);
+    }
+
+    @Override
+    public long getLoadCount() {
+        return LOAD.count();
+    }
+
+    @Override
+    public long getLoadMeanMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(LOAD.meanNanos());
+    }
+
+    @Override
+    public long getSaveCount() {
+        return SAVE.count();
+    }
+
+    @Override
+    public long getSaveMeanMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(SAVE.meanNanos());
+    }
+
+    @Override
+    public long getReloadCount() {
+        return RELOAD.count();
+    }
+
+    @Override
+    public long getReloadMeanMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(RELOAD.meanNanos());
+    }
+
+    @Override
+    public long getExhaustionMeanNanos() {
+        return EXHAUSTION.meanNanos();
+    }
+
+    @Override
+    public long getExhaustionP99Nanos() {
+        return EXHAUSTION.percentileNanos(0.99);
+    }
+
+    @Override
+    public void reset() {
+        resetAll();
+    }
+}
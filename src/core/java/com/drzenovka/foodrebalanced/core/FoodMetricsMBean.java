@@ -0,0 +1,39 @@
+package com.drzenovka.foodrebalanced.core;
+
+/** JMX view of {@link FoodMetrics}, registered as com.drzenovka.foodrebalanced:type=FoodMetrics */
+public interface FoodMetricsMBean {
+
+    long getEatEvents();
+
+    long getNbtVariantHits();
+
+    long getExactHits();
+
+    long getMetaFallbackHits();
+
+    long getMisses();
+
+    long getEffectsApplied();
+
+    long getEatMeanNanos();
+
+    long getEatP99Nanos();
+
+    long getLoadCount();
+
+    long getLoadMeanMillis();
+
+    long getSaveCount();
+
+    long getSaveMeanMillis();
+
+    long getReloadCount();
+
+    long getReloadMeanMillis();
+
+    long getExhaustionMeanNanos();
+
+    long getExhaustionP99Nanos();
+
+    void reset();
+}
@@ -0,0 +1,98 @@
+package com.drzenovka.foodrebalanced.core;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The base table and the tables of the named profiles layered on it, each resolved at load. Dimensions map
+ * to their profile's table through an array offset by the lowest assigned dimension id, dimensions without a
+ * profile use the base table. Immutable, a reload publishes a new instance in one swap.
+ */
+public final class FoodProfiles {
+
+    public static final FoodProfiles EMPTY = new FoodProfiles(
+        FoodTable.EMPTY,
+        Collections.emptyMap(),
+        new FoodTable[0],
+        0);
+
+    /** Widest range of dimension ids the lookup array covers */
+    public static final int MAX_DIMENSION_SPAN = 1 << 16;
+
+    public final FoodTable base;
+    private final Map<String, FoodTable> byName;
+    private final FoodTable[] byDimension;
+    private final int minDimension;
+
+    private FoodProfiles(FoodTable base, Map<String, FoodTable> byName, FoodTable[] byDimension, int minDimension) {
+        this.base = base;
+        this.byName = byName;
+        this.byDimension = byDimension;
+        this.minDimension = minDimension;
+    }
+
+    /**
+     * Tables for the given profiles, assigned to dimensions by name. Assignments to profiles that don't exist
+     * are skipped with a warning.
+     */
+    public static FoodProfiles build(FoodTable base, Map<String, FoodTable> profiles, Map<Integer, String> dimensions) {
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (Map.Entry<Integer, String> entry : dimensions.entrySet()) {
+            if (!profiles.containsKey(entry.getValue())) {
+                System.err.println(
+                    "[FoodRebalanced] Dimension " + entry.getKey() + " uses missing profile " + entry.getValue());
+                continue;
+            }
+            min = Math.min(min, entry.getKey());
+            max = Math.max(max, entry.getKey());
+        }
+        if (min > max) return new FoodProfiles(base, new LinkedHashMap<>(profiles), new FoodTable[0], 0);
+
+        if ((long) max - min >= MAX_DIMENSION_SPAN) {
+            throw new IllegalArgumentException(
+                "Profile dimensions " + min + " to " + max + " span more than " + MAX_DIMENSION_SPAN + " ids");
+        }
+        FoodTable[] byDimension = new FoodTable[max - min + 1];
+        for (Map.Entry<Integer, String> entry : dimensions.entrySet()) {
+            FoodTable table = profiles.get(entry.getValue());
+            if (table != null) byDimension[entry.getKey() - min] = table;
+        }
+        return new FoodProfiles(base, new LinkedHashMap<>(profiles), byDimension, min);
+    }
+
+    /** The table for a dimension, the base table if no profile is assigned to it */
+    public FoodTable forDimension(int dimension) {
+        int slot = dimension - minDimension;
+        if (slot < 0 || slot >= byDimension.length) return base;
+        FoodTable table = byDimension[slot];
+        return table != null ? table : base;
+    }
+
+    /** A profile's table by name, or null */
+    public FoodTable profile(String name) {
+        return byName.get(name);
+    }
+
+    public Map<String, FoodTable> profiles() {
+        return Collections.unmodifiableMap(byName);
+    }
+
+    /** Copy with a newly discovered food added to the base and to every profile that doesn't cover it yet */
+    public FoodProfiles with(String key, int itemId, int meta, FoodEntry data) {
+        Map<String, FoodTable> replaced = new LinkedHashMap<>();
+        Map<FoodTable, FoodTable> swapped = new IdentityHashMap<>();
+        for (Map.Entry<String, FoodTable> entry : byName.entrySet()) {
+            FoodTable table = entry.getValue();
+            FoodTable updated = table.get(key) != null ? table : table.with(key, itemId, meta, data);
+            replaced.put(entry.getKey(), updated);
+            swapped.put(table, updated);
+        }
+
+        FoodTable[] byDimension = new FoodTable[this.byDimension.length];
+        for (int i = 0; i < byDimension.length; i++) byDimension[i] = swapped.get(this.byDimension[i]);
+        return new FoodProfiles(base.with(key, itemId, meta, data), replaced, byDimension, minDimension);
+    }
+}
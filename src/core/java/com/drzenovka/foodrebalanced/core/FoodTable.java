@@ -0,0 +1,126 @@
+package com.drzenovka.foodrebalanced.core;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable snapshot of the loaded food config: the runtime entries by key and the id/meta index compiled
+ * from them. Keys and entries are parallel arrays sorted by key, which costs two references per entry where
+ * a map would add a node each. A new table is built for every load and published in one swap.
+ */
+public class FoodTable {
+
+    public static final FoodTable EMPTY = new FoodTable(new String[0], new FoodEntry[0], new FoodIndex());
+
+    private final String[] keys;
+    private final FoodEntry[] values;
+    private final FoodIndex index;
+
+    private FoodTable(String[] keys, FoodEntry[] values, FoodIndex index) {
+        this.keys = keys;
+        this.values = values;
+        this.index = index;
+    }
+
+    public FoodEntry get(int itemId, int meta) {
+        return index.get(itemId, meta);
+    }
+
+    public FoodEntry getExact(int itemId, int meta) {
+        return index.getExact(itemId, meta);
+    }
+
+    public FoodEntry getWildcard(int itemId) {
+        return index.getWildcard(itemId);
+    }
+
+    /** The NBT variant of the item matching the tag, see {@link FoodIndex#getVariant} */
+    public <T> FoodEntry getVariant(int itemId, int meta, T tag, NbtFingerprinter<T> fingerprinter) {
+        return index.getVariant(itemId, meta, tag, fingerprinter);
+    }
+
+    public FoodEntry get(String key) {
+        int i = Arrays.binarySearch(keys, key);
+        return i >= 0 ? values[i] : null;
+    }
+
+    /** Every key in the table, sorted */
+    public List<String> keys() {
+        return Collections.unmodifiableList(Arrays.asList(keys));
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    /** Keys whose entries were added, removed or changed compared to an older table */
+    public Set<String> changedKeys(FoodTable previous) {
+        Set<String> changed = new LinkedHashSet<>();
+        int i = 0;
+        int j = 0;
+        while (i < keys.length || j < previous.keys.length) {
+            int order = i == keys.length ? 1 : j == previous.keys.length ? -1 : keys[i].compareTo(previous.keys[j]);
+            if (order < 0) {
+                changed.add(keys[i++]);
+            } else if (order > 0) {
+                changed.add(previous.keys[j++]);
+            } else {
+                if (!values[i].equals(previous.values[j])) changed.add(keys[i]);
+                i++;
+                j++;
+            }
+        }
+        return changed;
+    }
+
+    /** Compile a table from config entries, skipping keys whose item isn't registered */
+    public static FoodTable build(Map<String, FoodData> entries, ItemRegistry items) {
+        return build(entries, items, new FoodInterner());
+    }
+
+    /** Compile a table from config entries, sharing equal entries through the interner */
+    public static FoodTable build(Map<String, FoodData> entries, ItemRegistry items, FoodInterner interner) {
+        String[] keys = entries.keySet()
+            .toArray(new String[0]);
+        Arrays.sort(keys);
+        FoodEntry[] values = new FoodEntry[keys.length];
+        for (int i = 0; i < keys.length; i++) values[i] = interner.entry(entries.get(keys[i]));
+        return new FoodTable(keys, values, FoodIndex.build(entries, items, interner));
+    }
+
+    /** Compile a table from runtime entries, such as the ones a client receives */
+    public static FoodTable of(Map<String, FoodEntry> entries, ItemRegistry items) {
+        String[] keys = entries.keySet()
+            .toArray(new String[0]);
+        Arrays.sort(keys);
+        FoodEntry[] values = new FoodEntry[keys.length];
+        for (int i = 0; i < keys.length; i++) values[i] = entries.get(keys[i]);
+        return new FoodTable(keys, values, FoodIndex.compile(entries, items));
+    }
+
+    /** Copy of this table with one entry added */
+    public FoodTable with(String key, int itemId, int meta, FoodEntry data) {
+        int i = Arrays.binarySearch(keys, key);
+        String[] newKeys;
+        FoodEntry[] newValues;
+        if (i >= 0) {
+            newKeys = keys;
+            newValues = values.clone();
+        } else {
+            i = -i - 1;
+            newKeys = new String[keys.length + 1];
+            newValues = new FoodEntry[values.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, i);
+            System.arraycopy(values, 0, newValues, 0, i);
+            System.arraycopy(keys, i, newKeys, i + 1, keys.length - i);
+            System.arraycopy(values, i, newValues, i + 1, values.length - i);
+            newKeys[i] = key;
+        }
+        newValues[i] = data;
+        return new FoodTable(newKeys, newValues, index.with(itemId, meta, data));
+    }
+}
@@ -0,0 +1,251 @@
+package com.drzenovka.foodrebalanced.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.JsonParser;
+
+/**
+ * Binary snapshot of the validated and compiled config shards, so unchanged files can be loaded without
+ * parsing JSON. The whole cache is only valid for the registry fingerprint it was written with, and each
+ * shard in it only for the exact bytes (by SHA-1) it was parsed from. Strings are a varint byte length and
+ * UTF-8, as writeUTF stops at 64 KiB and a long NBT pattern or problem message would break the write.
+ */
+public class FoodTableCache {
+
+    private static final int MAGIC = 0x46524331; // FRC1
+    private static final int VERSION = 7;
+    /** No real string comes near this, a longer one means the file is damaged */
+    private static final int MAX_TEXT = 1 << 24;
+
+    /** Digest the cache is keyed by, for hashing config bytes as they are written */
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static byte[] hash(byte[] data) {
+        return newDigest().digest(data);
+    }
+
+    public static void write(File file, long fingerprint, Collection<ConfigShard> shards) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(fingerprint);
+
+            out.writeInt(shards.size());
+            for (ConfigShard shard : shards) {
+                writeText(out, shard.name);
+                out.writeShort(shard.hash.length);
+                out.write(shard.hash);
+
+                out.writeInt(shard.document.size());
+                for (Map.Entry<String, FoodData> entry : shard.document.entrySet()) {
+                    writeText(out, entry.getKey());
+                    out.writeBoolean(shard.report.isRejected(entry.getKey()));
+                    writeEntry(out, entry.getValue());
+                }
+
+                List<String> problems = shard.report.problems();
+                out.writeInt(problems.size());
+                for (String problem : problems) writeText(out, problem);
+            }
+        }
+        AtomicFiles.replace(temp, file);
+    }
+
+    /** The cached shards by file name, or an empty map if the cache is missing, stale or damaged */
+    public static Map<String, ConfigShard> read(File file, long fingerprint) {
+        if (!file.exists()) return Collections.emptyMap();
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return Collections.emptyMap();
+            if (in.readLong() != fingerprint) return Collections.emptyMap();
+
+            int shardCount = in.readInt();
+            Map<String, ConfigShard> shards = new HashMap<>();
+            for (int s = 0; s < shardCount; s++) {
+                String name = readText(in);
+                byte[] hash = new byte[in.readUnsignedShort()];
+                in.readFully(hash);
+
+                int size = in.readInt();
+                Map<String, FoodData> document = new LinkedHashMap<>(size * 4 / 3 + 1);
+                List<String> rejected = new ArrayList<>();
+                for (int i = 0; i < size; i++) {
+                    String key = readText(in);
+                    if (in.readBoolean()) rejected.add(key);
+                    document.put(key, readEntry(in));
+                }
+
+                int problemCount = in.readInt();
+                List<String> problems = new ArrayList<>(problemCount);
+                for (int i = 0; i < problemCount; i++) problems.add(readText(in));
+
+                ValidationReport report = ValidationReport.restore(name, problems, rejected);
+                shards.put(name, new ConfigShard(name, document, report, hash));
+            }
+            return shards;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("[FoodRebalanced] Ignoring unreadable cache " + file.getName() + ": " + e);
+            return Collections.emptyMap();
+        }
+    }
+
+    private static void writeEntry(DataOutputStream out, FoodData data) throws IOException {
+        writeString(out, data.name);
+        out.writeBoolean(data.hunger != null);
+        if (data.hunger != null) out.writeInt(data.hunger);
+        out.writeBoolean(data.saturation != null);
+        if (data.saturation != null) out.writeFloat(data.saturation);
+        writeString(out, data.hungerExpression != null ? data.hungerExpression.source : null);
+        writeString(out, data.saturationExpression != null ? data.saturationExpression.source : null);
+        out.writeBoolean(data.priority != null);
+        if (data.priority != null) out.writeInt(data.priority);
+
+        int effects = data.effects != null ? data.effects.size() : -1;
+        out.writeInt(effects);
+        for (int i = 0; i < effects; i++) {
+            FoodData.EffectData ed = data.effects.get(i);
+            writeString(out, ed.id);
+            out.writeInt(ed.duration != null ? ed.duration : Integer.MIN_VALUE);
+            out.writeInt(ed.amplifier != null ? ed.amplifier : Integer.MIN_VALUE);
+            out.writeFloat(ed.chance != null ? ed.chance : Float.NaN);
+            out.writeInt(ed.delay != null ? ed.delay : Integer.MIN_VALUE);
+            out.writeInt(ed.interval != null ? ed.interval : Integer.MIN_VALUE);
+            out.writeInt(ed.repeat != null ? ed.repeat : Integer.MIN_VALUE);
+        }
+        writeString(out, data.nbt != null ? data.nbt.toString() : null);
+
+        out.writeShort(data.compiledEffects.length);
+        for (CompiledEffect effect : data.compiledEffects) {
+            out.writeInt(effect.potionId);
+            out.writeInt(effect.durationTicks);
+            out.writeInt(effect.amplifier);
+            out.writeFloat(effect.chance);
+            out.writeInt(effect.delayTicks);
+            out.writeInt(effect.intervalTicks);
+            out.writeInt(effect.repeat);
+        }
+    }
+
+    private static FoodData readEntry(DataInputStream in) throws IOException {
+        FoodData data = new FoodData();
+        data.name = readString(in);
+        if (in.readBoolean()) data.hunger = in.readInt();
+        if (in.readBoolean()) data.saturation = in.readFloat();
+        String hungerExpression = readString(in);
+        String saturationExpression = readString(in);
+        // Only formulas that parsed were cached, so parsing them again can't fail
+        if (hungerExpression != null) data.hungerExpression = FoodExpression.parse(hungerExpression, false);
+        if (saturationExpression != null) data.saturationExpression = FoodExpression.parse(saturationExpression, true);
+        if (in.readBoolean()) data.priority = in.readInt();
+
+        int effects = in.readInt();
+        data.effects = effects < 0 ? null : new ArrayList<>(effects);
+        for (int i = 0; i < effects; i++) {
+            FoodData.EffectData ed = new FoodData.EffectData();
+            ed.id = readString(in);
+            int duration = in.readInt();
+            int amplifier = in.readInt();
+            float chance = in.readFloat();
+            ed.duration = duration != Integer.MIN_VALUE ? duration : null;
+            ed.amplifier = amplifier != Integer.MIN_VALUE ? amplifier : null;
+            ed.chance = !Float.isNaN(chance) ? chance : null;
+            ed.delay = nullable(in.readInt());
+            ed.interval = nullable(in.readInt());
+            ed.repeat = nullable(in.readInt());
+            data.effects.add(ed);
+        }
+        String nbt = readString(in);
+        if (nbt != null) {
+            data.nbt = new JsonParser().parse(nbt)
+                .getAsJsonObject();
+            data.nbtPattern = NbtPattern.compile(data.nbt);
+        }
+
+        int compiled = in.readUnsignedShort();
+        if (compiled > 0) {
+            data.compiledEffects = new CompiledEffect[compiled];
+            for (int i = 0; i < compiled; i++) {
+                data.compiledEffects[i] = new CompiledEffect(
+                    in.readInt(),
+                    in.readInt(),
+                    in.readInt(),
+                    in.readFloat(),
+                    in.readInt(),
+                    in.readInt(),
+                    in.readInt());
+            }
+        }
+        return data;
+    }
+
+    private static Integer nullable(int value) {
+        return value != Integer.MIN_VALUE ? value : null;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) writeText(out, value);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? readText(in) : null;
+    }
+
+    private static void writeText(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readText(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Seven bits a byte, low bits first, the high bit set on every byte but the last */
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte(value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (value < 0 || value > MAX_TEXT) throw new IOException("bad string length " + value);
+                return value;
+            }
+        }
+        throw new IOException("varint longer than 5 bytes");
+    }
+}
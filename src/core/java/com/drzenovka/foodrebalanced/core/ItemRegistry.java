@@ -0,0 +1,8 @@
+package com.drzenovka.foodrebalanced.core;
+
+/** Resolves registry names to the numeric item ids the lookup index is keyed by */
+public interface ItemRegistry {
+
+    /** Numeric id of the item with this registry name, or -1 if there is none */
+    int getItemId(String name);
+}
@@ -0,0 +1,65 @@
+package com.drzenovka.foodrebalanced.core;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with power of two buckets. Recording is a couple of striped adds, so it's
+ * cheap enough for the eat path; percentiles are reported as the upper bound of their bucket.
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 64;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) buckets[i] = new LongAdder();
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        // Bucket b holds values in [2^(b-1), 2^b)
+        buckets[64 - Long.numberOfLeadingZeros(nanos) & (BUCKETS - 1)].increment();
+        count.increment();
+        total.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long meanNanos() {
+        long n = count.sum();
+        return n == 0 ? 0 : total.sum() / n;
+    }
+
+    public long maxNanos() {
+        return max.get();
+    }
+
+    /** Upper bound of the bucket holding the given quantile, 0 if nothing was recorded */
+    public long percentileNanos(double quantile) {
+        long n = count.sum();
+        if (n == 0) return 0;
+
+        long threshold = (long) Math.ceil(n * quantile);
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += buckets[b].sum();
+            if (seen >= threshold) return b == 0 ? 0 : b >= 63 ? Long.MAX_VALUE : (1L << b) - 1;
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (LongAdder bucket : buckets) bucket.reset();
+        count.reset();
+        total.reset();
+        max.reset();
+    }
+}
@@ -0,0 +1,7 @@
+package com.drzenovka.foodrebalanced.core;
+
+/** Fingerprints an item's NBT over a set of top-level keys, the same way {@link NbtPattern} hashes JSON */
+public interface NbtFingerprinter<T> {
+
+    long fingerprint(T tag, String[] keys);
+}
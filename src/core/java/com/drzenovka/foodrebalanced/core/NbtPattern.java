@@ -0,0 +1,122 @@
+package com.drzenovka.foodrebalanced.core;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+/**
+ * The NBT an entry applies to, compiled from its "nbt" object into the sorted top-level keys it looks at
+ * and a 64-bit FNV-1a fingerprint of their values. Values hash by kind rather than exact NBT type: every
+ * whole number (byte to long, and booleans) is an integer, floats and doubles compare at float precision,
+ * objects hash with their keys sorted. An item's tag matches if it fingerprints the same over those keys.
+ */
+public final class NbtPattern {
+
+    public static final long OFFSET = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    public static final byte MISSING = 'n';
+    public static final byte STRING = 's';
+    public static final byte INTEGER = 'i';
+    public static final byte FLOAT = 'f';
+    public static final byte COMPOUND = 'c';
+    public static final byte LIST = 'l';
+
+    public final String[] keys;
+    public final long print;
+
+    private NbtPattern(String[] keys, long print) {
+        this.keys = keys;
+        this.print = print;
+    }
+
+    public static NbtPattern compile(JsonObject nbt) {
+        String[] keys = new String[nbt.entrySet()
+            .size()];
+        int i = 0;
+        for (Map.Entry<String, JsonElement> entry : nbt.entrySet()) keys[i++] = entry.getKey();
+        Arrays.sort(keys);
+
+        long h = OFFSET;
+        for (String key : keys) {
+            h = mix(h, key);
+            h = mix(h, nbt.get(key));
+        }
+        return new NbtPattern(keys, h);
+    }
+
+    /** The same pattern with its keys array swapped for an equal one, so fingerprints can be shared */
+    NbtPattern withKeys(String[] shared) {
+        return new NbtPattern(shared, print);
+    }
+
+    public static long mix(long h, byte kind) {
+        return (h ^ kind) * PRIME;
+    }
+
+    public static long mix(long h, long value) {
+        for (int i = 0; i < 8; i++) {
+            h = (h ^ (value & 0xff)) * PRIME;
+            value >>>= 8;
+        }
+        return h;
+    }
+
+    public static long mix(long h, String value) {
+        h = mix(h, (long) value.length());
+        for (int i = 0; i < value.length(); i++) h = (h ^ value.charAt(i)) * PRIME;
+        return h;
+    }
+
+    public static long mixInteger(long h, long value) {
+        return mix(mix(h, INTEGER), value);
+    }
+
+    public static long mixFloat(long h, double value) {
+        return mix(mix(h, FLOAT), Float.floatToIntBits((float) value));
+    }
+
+    public static long mixString(long h, String value) {
+        return mix(mix(h, STRING), value);
+    }
+
+    private static long mix(long h, JsonElement value) {
+        if (value == null || value.isJsonNull()) return mix(h, MISSING);
+
+        if (value.isJsonObject()) {
+            JsonObject object = value.getAsJsonObject();
+            String[] keys = new String[object.entrySet()
+                .size()];
+            int i = 0;
+            for (Map.Entry<String, JsonElement> entry : object.entrySet()) keys[i++] = entry.getKey();
+            Arrays.sort(keys);
+
+            h = mix(mix(h, COMPOUND), (long) keys.length);
+            for (String key : keys) h = mix(mix(h, key), object.get(key));
+            return h;
+        }
+
+        if (value.isJsonArray()) {
+            JsonArray array = value.getAsJsonArray();
+            h = mix(mix(h, LIST), (long) array.size());
+            for (JsonElement element : array) h = mix(h, element);
+            return h;
+        }
+
+        JsonPrimitive primitive = value.getAsJsonPrimitive();
+        if (primitive.isBoolean()) return mixInteger(h, primitive.getAsBoolean() ? 1 : 0);
+        if (primitive.isString()) return mixString(h, primitive.getAsString());
+
+        String raw = primitive.getAsString();
+        if (raw.indexOf('.') < 0 && raw.indexOf('e') < 0 && raw.indexOf('E') < 0) {
+            try {
+                return mixInteger(h, Long.parseLong(raw));
+            } catch (NumberFormatException ignored) {}
+        }
+        return mixFloat(h, primitive.getAsDouble());
+    }
+}
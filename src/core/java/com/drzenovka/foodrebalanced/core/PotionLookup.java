@@ -0,0 +1,8 @@
+package com.drzenovka.foodrebalanced.core;
+
+/** Resolves potion names from the config to potion ids */
+public interface PotionLookup {
+
+    /** Potion id for a config name, or -1 if unknown */
+    int resolve(String name);
+}
@@ -0,0 +1,220 @@
+package com.drzenovka.foodrebalanced.core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Food values of crafted and smelted foods derived from their ingredients. Each output is worth the summed
+ * hunger and saturation points of its ingredients, split over the output count and scaled by the recipe's
+ * multiplier. Ingredients without values of their own are derived first: the recipe graph is split into its
+ * strongly connected components once, with Tarjan's algorithm, and each component is evaluated after every
+ * component it leads to, so every item is evaluated exactly once. Ingredients from an item's own component
+ * lead back around a cycle and are passed over, so the item is worth what its recipes from outside the cycle
+ * give, whichever order the targets come in. A recipe with a slot that only offers such ingredients is left
+ * out, and where several recipes make an item the most filling one counts.
+ */
+public final class RecipeDerivation {
+
+    /** One crafting or smelting recipe, with item keys in the form of {@link FoodKeys#getKey} */
+    public static final class Recipe {
+
+        final String output;
+        final int count;
+        /** Per slot, the items that fit it, the first one with a value is used */
+        final String[][] ingredients;
+        final double multiplier;
+
+        public Recipe(String output, int count, String[][] ingredients, double multiplier) {
+            this.output = output;
+            this.count = Math.max(count, 1);
+            this.ingredients = ingredients;
+            this.multiplier = multiplier;
+        }
+    }
+
+    /** Hunger and saturation points an item is worth, saturation points being what eating it adds */
+    private static final class Worth {
+
+        static final Worth NOTHING = new Worth(0, 0);
+
+        final double hunger;
+        final double saturationPoints;
+
+        Worth(double hunger, double saturationPoints) {
+            this.hunger = hunger;
+            this.saturationPoints = saturationPoints;
+        }
+    }
+
+    /** A crafted item on Tarjan's walk */
+    private static final class Node {
+
+        final int order;
+        int low;
+        boolean onStack = true;
+        /** Null until the item's component has been evaluated */
+        Worth worth;
+
+        Node(int order) {
+            this.order = order;
+            this.low = order;
+        }
+    }
+
+    private final Map<String, List<Recipe>> byOutput = new HashMap<>();
+    private final Function<String, FoodData> known;
+    private final Function<String, FoodData> uncrafted;
+    private final Map<String, Node> nodes = new HashMap<>();
+    /** Items visited whose component isn't complete yet */
+    private final Deque<String> stack = new ArrayDeque<>();
+    private final Set<Recipe> skipped = new HashSet<>();
+
+    /**
+     * {@code known} gives the resolved entry of an item key, or null if the config doesn't list it.
+     * {@code uncrafted} gives the values of items the config doesn't list and no recipe makes, or null.
+     */
+    public RecipeDerivation(Collection<Recipe> recipes, Function<String, FoodData> known,
+        Function<String, FoodData> uncrafted) {
+        this.known = known;
+        this.uncrafted = uncrafted;
+        for (Recipe recipe : recipes) byOutput.computeIfAbsent(recipe.output, k -> new ArrayList<>(1))
+            .add(recipe);
+    }
+
+    /** Values for the targets that have a recipe with at least one food among its ingredients */
+    public Map<String, FoodData> derive(Collection<String> targets) {
+        Map<String, FoodData> derived = new LinkedHashMap<>();
+        for (String target : targets) {
+            if (!byOutput.containsKey(target)) continue;
+
+            Worth worth = worth(target);
+            int hunger = (int) Math.round(worth.hunger);
+            if (hunger <= 0) continue;
+            // ItemFood adds hunger * modifier * 2 saturation points
+            float saturation = (float) (worth.saturationPoints / (2.0 * hunger));
+            derived.put(target, new FoodData(hunger, Math.round(saturation * 100f) / 100f));
+        }
+        return derived;
+    }
+
+    /** Recipes skipped because they lead back to their own output */
+    public int cycles() {
+        return skipped.size();
+    }
+
+    /** The item's worth, null for an item of the component being evaluated */
+    private Worth worth(String key) {
+        FoodData data = known.apply(key);
+        if (data != null) return worthOf(data);
+
+        if (!byOutput.containsKey(key)) {
+            data = uncrafted.apply(key);
+            return data != null ? worthOf(data) : Worth.NOTHING;
+        }
+
+        Node node = nodes.get(key);
+        if (node == null) {
+            visit(key);
+            node = nodes.get(key);
+        }
+        return node.worth;
+    }
+
+    /** Items the config lists, or no recipe makes, have their values already and end the walk */
+    private boolean derived(String key) {
+        return byOutput.containsKey(key) && known.apply(key) == null;
+    }
+
+    /** Tarjan's walk from the item, evaluating each component once the walk has left it */
+    private void visit(String key) {
+        Node node = new Node(nodes.size());
+        nodes.put(key, node);
+        stack.push(key);
+
+        for (Recipe recipe : byOutput.get(key)) {
+            for (String[] slot : recipe.ingredients) {
+                for (String option : slot) {
+                    if (!derived(option)) continue;
+                    Node next = nodes.get(option);
+                    if (next == null) {
+                        visit(option);
+                        node.low = Math.min(node.low, nodes.get(option).low);
+                    } else if (next.onStack) {
+                        node.low = Math.min(node.low, next.order);
+                    }
+                }
+            }
+        }
+        if (node.low != node.order) return;
+
+        // The first item of its component, what the component leads to outside itself has been evaluated
+        List<String> members = new ArrayList<>();
+        String member;
+        do {
+            member = stack.pop();
+            nodes.get(member).onStack = false;
+            members.add(member);
+        } while (!member.equals(key));
+
+        // Values are set together, so no member sees another's and the order within the component doesn't matter
+        Worth[] worths = new Worth[members.size()];
+        for (int i = 0; i < worths.length; i++) worths[i] = best(members.get(i));
+        for (int i = 0; i < worths.length; i++) nodes.get(members.get(i)).worth = worths[i];
+    }
+
+    /** The most filling of the item's recipes */
+    private Worth best(String key) {
+        Worth best = Worth.NOTHING;
+        for (Recipe recipe : byOutput.get(key)) {
+            Worth worth = evaluate(recipe);
+            if (worth == null) {
+                skipped.add(recipe);
+            } else if (worth.hunger > best.hunger) {
+                best = worth;
+            }
+        }
+        return best;
+    }
+
+    private static Worth worthOf(FoodData data) {
+        int hunger = data.hunger != null ? data.hunger : 0;
+        float saturation = data.saturation != null ? data.saturation : 0f;
+        return new Worth(hunger, hunger * saturation * 2.0);
+    }
+
+    /**
+     * The worth of one output of the recipe, null if an ingredient depends on the output. A slot takes its
+     * first option with a value, options that lead back around a cycle only rule the recipe out if the slot
+     * has nothing else.
+     */
+    private Worth evaluate(Recipe recipe) {
+        double hunger = 0;
+        double saturationPoints = 0;
+        for (String[] slot : recipe.ingredients) {
+            Worth worth = null;
+            for (String option : slot) {
+                Worth candidate = worth(option);
+                if (candidate == null) continue;
+                if (candidate.hunger > 0) {
+                    worth = candidate;
+                    break;
+                }
+                if (worth == null) worth = candidate;
+            }
+            if (worth == null) return null;
+            hunger += worth.hunger;
+            saturationPoints += worth.saturationPoints;
+        }
+        double scale = recipe.multiplier / recipe.count;
+        return new Worth(hunger * scale, saturationPoints * scale);
+    }
+}
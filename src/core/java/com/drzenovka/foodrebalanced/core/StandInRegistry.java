@@ -0,0 +1,43 @@
+package com.drzenovka.foodrebalanced.core;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Item and potion registry backed by plain maps, standing in for the game registries when the core
+ * runs outside Minecraft, such as in the benchmarks. Item ids are handed out in registration order.
+ */
+public class StandInRegistry implements ItemRegistry, PotionLookup {
+
+    private final Map<String, Integer> items = new HashMap<>();
+    private final Map<String, Integer> potions = new HashMap<>();
+
+    /** Register an item if needed and return its id */
+    public int registerItem(String name) {
+        Integer id = items.get(name);
+        if (id == null) items.put(name, id = items.size());
+        return id;
+    }
+
+    public void registerPotion(String name, int id) {
+        potions.put(name.toLowerCase(Locale.ROOT), id);
+    }
+
+    @Override
+    public int getItemId(String name) {
+        Integer id = items.get(name);
+        return id != null ? id : -1;
+    }
+
+    @Override
+    public int resolve(String name) {
+        if (name == null) return -1;
+        String key = name.trim()
+            .toLowerCase(Locale.ROOT);
+        if (key.startsWith("minecraft:")) key = key.substring(10);
+
+        Integer id = potions.get(key);
+        return id != null ? id : -1;
+    }
+}
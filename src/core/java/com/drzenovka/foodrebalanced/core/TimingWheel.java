@@ -0,0 +1,141 @@
+package com.drzenovka.foodrebalanced.core;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Hashed timing wheel counting in ticks. Timers due within one turn of the wheel sit in the slot of their due
+ * tick, so advancing only visits the timers due that tick; later ones wait in an overflow queue and move into
+ * the wheel once they come within range. Timers belong to a {@link Group} that can be cancelled in O(1), its
+ * timers are dropped when their slot comes up. Not thread safe, use it from one thread.
+ */
+public final class TimingWheel<T> {
+
+    /** Runs a due task, returns the delay until it runs again or 0 when it is done */
+    public interface Task<T> {
+
+        long run(T task);
+    }
+
+    private final Timer<T>[] slots;
+    private final int mask;
+    private final PriorityQueue<Timer<T>> overflow = new PriorityQueue<>(Comparator.comparingLong(t -> t.due));
+    private long now;
+
+    /** A wheel of at least the given number of slots, rounded up to a power of two */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public TimingWheel(int minSlots) {
+        int size = Integer.highestOneBit(Math.max(minSlots - 1, 1)) << 1;
+        this.slots = new Timer[size];
+        this.mask = size - 1;
+    }
+
+    public long now() {
+        return now;
+    }
+
+    /** Run the task after the given number of ticks, at least one */
+    public void schedule(Group<T> group, T task, long delay) {
+        Timer<T> timer = new Timer<>(task, group);
+        group.link(timer);
+        insert(timer, now + Math.max(delay, 1));
+    }
+
+    /** Move to the next tick and run everything due on it */
+    public void advance(Task<T> runner) {
+        now++;
+        while (!overflow.isEmpty() && overflow.peek().due - now < slots.length) {
+            Timer<T> timer = overflow.poll();
+            if (timer.group.cancelled) {
+                timer.group.unlink(timer);
+            } else {
+                insert(timer, timer.due);
+            }
+        }
+
+        int slot = (int) (now & mask);
+        Timer<T> timer = slots[slot];
+        slots[slot] = null;
+        while (timer != null) {
+            Timer<T> next = timer.next;
+            timer.next = null;
+            long again = timer.group.cancelled ? 0 : runner.run(timer.task);
+            if (again > 0 && !timer.group.cancelled) {
+                insert(timer, now + again);
+            } else {
+                timer.group.unlink(timer);
+            }
+            timer = next;
+        }
+    }
+
+    /** Drop every timer, for when the server stops */
+    public void clear() {
+        for (int i = 0; i < slots.length; i++) slots[i] = null;
+        overflow.clear();
+    }
+
+    private void insert(Timer<T> timer, long due) {
+        timer.due = due;
+        if (due - now < slots.length) {
+            int slot = (int) (due & mask);
+            timer.next = slots[slot];
+            slots[slot] = timer;
+        } else {
+            overflow.add(timer);
+        }
+    }
+
+    private static final class Timer<T> {
+
+        final T task;
+        final Group<T> group;
+        long due;
+        Timer<T> next; // in the slot
+        Timer<T> prevInGroup;
+        Timer<T> nextInGroup;
+
+        Timer(T task, Group<T> group) {
+            this.task = task;
+            this.group = group;
+        }
+    }
+
+    /** The timers of one owner, such as a player, which can be cancelled together */
+    public static final class Group<T> {
+
+        private Timer<T> head;
+        private boolean cancelled;
+
+        /** Stop all of the group's timers, they are dropped lazily when they come due */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /** Each pending task with the ticks left until it runs, including those of a cancelled group */
+        public void forEach(TimingWheel<T> wheel, ObjLongConsumer<T> action) {
+            for (Timer<T> timer = head; timer != null; timer = timer.nextInGroup) {
+                action.accept(timer.task, timer.due - wheel.now);
+            }
+        }
+
+        private void link(Timer<T> timer) {
+            timer.nextInGroup = head;
+            if (head != null) head.prevInGroup = timer;
+            head = timer;
+        }
+
+        private void unlink(Timer<T> timer) {
+            if (timer.prevInGroup != null) timer.prevInGroup.nextInGroup = timer.nextInGroup;
+            else head = timer.nextInGroup;
+            if (timer.nextInGroup != null) timer.nextInGroup.prevInGroup = timer.prevInGroup;
+            timer.prevInGroup = null;
+            timer.nextInGroup = null;
+        }
+    }
+}
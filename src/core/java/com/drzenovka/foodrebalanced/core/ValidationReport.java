@@ -0,0 +1,86 @@
+package com.drzenovka.foodrebalanced.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/** Problems found while loading a config file, collected so they can be reported in one go */
+public class ValidationReport {
+
+    private final String source;
+    private final List<String> problems = new ArrayList<>();
+    private final Set<String> rejected = new HashSet<>();
+    private int errors;
+
+    public ValidationReport(String source) {
+        this.source = source;
+    }
+
+    /** Rebuild a report from problems recorded earlier, such as in a config cache */
+    public static ValidationReport restore(String source, List<String> problems, Collection<String> rejected) {
+        ValidationReport report = new ValidationReport(source);
+        report.problems.addAll(problems);
+        report.rejected.addAll(rejected);
+        report.errors = rejected.size();
+        return report;
+    }
+
+    /** One report covering several files, for logging and counting */
+    public static ValidationReport combine(String source, Collection<ValidationReport> reports) {
+        ValidationReport combined = new ValidationReport(source);
+        for (ValidationReport report : reports) {
+            combined.problems.addAll(report.problems);
+            combined.rejected.addAll(report.rejected);
+            combined.errors += report.errors;
+        }
+        return combined;
+    }
+
+    /** An error rejects the entry it belongs to */
+    public void error(String location, String key, String message) {
+        errors++;
+        rejected.add(key);
+        problems.add("Error in " + source + " at " + location + ", food " + key + ": " + message);
+    }
+
+    /** An error found after parsing, when the position in the file is no longer known */
+    public void error(String key, String message) {
+        errors++;
+        rejected.add(key);
+        problems.add("Error in " + source + ", food " + key + ": " + message);
+    }
+
+    /** A warning leaves the entry in place */
+    public void warn(String location, String key, String message) {
+        problems.add("Warning in " + source + " at " + location + ", food " + key + ": " + message);
+    }
+
+    /** A warning found after parsing, when the position in the file is no longer known */
+    public void warn(String key, String message) {
+        problems.add("Warning in " + source + ", food " + key + ": " + message);
+    }
+
+    public int errorCount() {
+        return errors;
+    }
+
+    public boolean isRejected(String key) {
+        return rejected.contains(key);
+    }
+
+    public int rejectedCount() {
+        return rejected.size();
+    }
+
+    public List<String> problems() {
+        return Collections.unmodifiableList(problems);
+    }
+
+    /** Print every problem to the log */
+    public void log() {
+        for (String problem : problems) System.err.println("[FoodRebalanced] " + problem);
+    }
+}
@@ -0,0 +1,83 @@
+package com.drzenovka.foodrebalanced.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.drzenovka.foodrebalanced.core.EffectCompiler;
+import com.drzenovka.foodrebalanced.core.FoodConfigParser;
+import com.drzenovka.foodrebalanced.core.FoodConfigWriter;
+import com.drzenovka.foodrebalanced.core.FoodData;
+import com.drzenovka.foodrebalanced.core.FoodTable;
+import com.drzenovka.foodrebalanced.core.ValidationReport;
+
+/** loadConfig and saveConfig without the disk: parse, validate, compile and index, then write back */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConfigIoBenchmark {
+
+    @Param({ "100", "1000", "10000", "50000" })
+    int size;
+
+    SyntheticConfig config;
+    String json;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        config = new SyntheticConfig(size, 42L);
+        json = config.toJson();
+    }
+
+    @Benchmark
+    public FoodTable load() throws IOException {
+        ValidationReport report = new ValidationReport("benchmark");
+        Map<String, FoodData> entries = FoodConfigParser.parse(new StringReader(json), report);
+        for (Map.Entry<String, FoodData> entry : entries.entrySet()) {
+            EffectCompiler.compile(entry.getKey(), entry.getValue(), config.registry, report);
+        }
+        return FoodTable.build(entries, config.registry);
+    }
+
+    @Benchmark
+    public long save() throws IOException {
+        CountingWriter out = new CountingWriter();
+        FoodConfigWriter.write(out, SyntheticConfig.GSON, config.entries);
+        return out.count;
+    }
+
+    /** Discards output so the benchmark measures serialization, not buffer growth */
+    static class CountingWriter extends Writer {
+
+        long count;
+
+        @Override
+        public void write(char[] buf, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+    }
+}
@@ -0,0 +1,71 @@
+package com.drzenovka.foodrebalanced.benchmark;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.drzenovka.foodrebalanced.core.CompiledEffect;
+import com.drzenovka.foodrebalanced.core.EffectCompiler;
+import com.drzenovka.foodrebalanced.core.FoodData;
+
+/** Load-time effect resolution for a whole config, and the per-eat chance rolls */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EffectBenchmark {
+
+    @Param({ "100", "1000", "10000", "50000" })
+    int size;
+
+    SyntheticConfig config;
+    FoodData[] withEffects;
+    Random rng = new Random(7L);
+    int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        config = new SyntheticConfig(size, 42L);
+        withEffects = config.entries.values()
+            .stream()
+            .filter(d -> !d.effects.isEmpty())
+            .toArray(FoodData[]::new);
+        for (FoodData data : withEffects) EffectCompiler.compile("", data, config.registry, null);
+    }
+
+    @Benchmark
+    public int resolveAll() {
+        int resolved = 0;
+        for (Map.Entry<String, FoodData> entry : config.entries.entrySet()) {
+            EffectCompiler.compile(entry.getKey(), entry.getValue(), config.registry, null);
+            resolved += entry.getValue().compiledEffects.length;
+        }
+        return resolved;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int select() {
+        FoodData data = withEffects[cursor++ % withEffects.length];
+        int applied = 0;
+        for (CompiledEffect effect : data.compiledEffects) {
+            if (effect.rolls(rng)) applied += effect.potionId;
+        }
+        return applied;
+    }
+}
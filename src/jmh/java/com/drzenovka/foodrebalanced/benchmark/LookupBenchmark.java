@@ -0,0 +1,57 @@
+package com.drzenovka.foodrebalanced.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.drzenovka.foodrebalanced.core.FoodEntry;
+import com.drzenovka.foodrebalanced.core.FoodTable;
+
+/** getFoodData equivalent: id/meta lookups against the compiled table, including wildcard fallbacks */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupBenchmark {
+
+    @Param({ "100", "1000", "10000", "50000" })
+    int size;
+
+    FoodTable table;
+    int[] itemIds;
+    int[] metas;
+    int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SyntheticConfig config = new SyntheticConfig(size, 42L);
+        table = FoodTable.build(config.entries, config.registry);
+        itemIds = config.itemIds;
+        metas = config.metas;
+    }
+
+    @Benchmark
+    public FoodEntry lookup() {
+        int i = cursor++ % itemIds.length;
+        return table.get(itemIds[i], metas[i]);
+    }
+
+    @Benchmark
+    public FoodEntry lookupMiss() {
+        int i = cursor++ % itemIds.length;
+        return table.get(itemIds[i], 1000 + metas[i]);
+    }
+}
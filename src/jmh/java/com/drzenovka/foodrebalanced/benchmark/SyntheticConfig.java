@@ -0,0 +1,62 @@
+package com.drzenovka.foodrebalanced.benchmark;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import com.drzenovka.foodrebalanced.core.FoodConfigWriter;
+import com.drzenovka.foodrebalanced.core.FoodData;
+import com.drzenovka.foodrebalanced.core.StandInRegistry;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Generates configs shaped like a large modpack's: a few hundred mods, mostly meta 0 entries with
+ * some meta variants and wildcards, and roughly one food in five carrying potion effects.
+ */
+public class SyntheticConfig {
+
+    static final Gson GSON = new GsonBuilder().setPrettyPrinting()
+        .create();
+    static final String[] POTIONS = { "regeneration", "hunger", "poison", "speed", "strength", "absorption",
+        "nausea", "saturation" };
+
+    final StandInRegistry registry = new StandInRegistry();
+    final Map<String, FoodData> entries = new LinkedHashMap<>();
+    final int[] itemIds;
+    final int[] metas;
+
+    SyntheticConfig(int size, long seed) {
+        Random rng = new Random(seed);
+        for (int i = 0; i < POTIONS.length; i++) registry.registerPotion(POTIONS[i], i + 1);
+
+        itemIds = new int[size];
+        metas = new int[size];
+        for (int i = 0; i < size; i++) {
+            String name = "mod" + (i % 300) + ":food_" + i / 4;
+            int meta = i % 4 == 3 ? -1 : i % 4;
+            itemIds[i] = registry.registerItem(name);
+            metas[i] = meta < 0 ? rng.nextInt(16) : meta;
+
+            FoodData data = new FoodData(1 + rng.nextInt(20), rng.nextFloat() * 2f);
+            data.name = "Food " + i;
+            if (rng.nextInt(5) == 0) {
+                data.effects.add(
+                    new FoodData.EffectData(
+                        "minecraft:" + POTIONS[rng.nextInt(POTIONS.length)],
+                        1 + rng.nextInt(60),
+                        rng.nextInt(3),
+                        rng.nextFloat()));
+            }
+            entries.put(name + ":" + meta, data);
+        }
+    }
+
+    String toJson() throws IOException {
+        StringWriter out = new StringWriter();
+        FoodConfigWriter.write(out, GSON, entries);
+        return out.toString();
+    }
+}
@@ -0,0 +1,25 @@
+package com.drzenovka.foodrebalanced;
+
+import net.minecraft.client.Minecraft;
+
+import com.drzenovka.foodrebalanced.client.ClientFoodTable;
+import com.drzenovka.foodrebalanced.client.FoodTooltipHandler;
+import com.drzenovka.foodrebalanced.config.FoodRebalancedConfig;
+import com.drzenovka.foodrebalanced.network.FoodSyncMessage;
+
+import cpw.mods.fml.common.event.FMLPreInitializationEvent;
+
+public class ClientProxy extends CommonProxy {
+
+    @Override
+    public void preInit(FMLPreInitializationEvent event) {
+        ClientFoodTable.register();
+        if (FoodRebalancedConfig.showTooltips) FoodTooltipHandler.register();
+    }
+
+    @Override
+    public void acceptSync(FoodSyncMessage message) {
+        Minecraft.getMinecraft()
+            .func_152344_a(() -> ClientFoodTable.accept(message));
+    }
+}
@@ -0,0 +1,14 @@
+package com.drzenovka.foodrebalanced;
+
+import com.drzenovka.foodrebalanced.network.FoodSyncMessage;
+
+import cpw.mods.fml.common.event.FMLPreInitializationEvent;
+
+/** Side specific work, the dedicated server has none. Common classes go through this for client classes */
+public class CommonProxy {
+
+    public void preInit(FMLPreInitializationEvent event) {}
+
+    /** Hand a food sync packet to the client thread, called from the network thread */
+    public void acceptSync(FoodSyncMessage message) {}
+}
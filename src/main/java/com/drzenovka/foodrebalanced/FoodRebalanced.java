@@ -1,24 +1,32 @@
 package com.drzenovka.foodrebalanced;
 
 import java.io.File;
-import java.lang.reflect.Field;
 import java.util.Random;
 
-import net.minecraft.client.Minecraft;
-import net.minecraft.item.ItemFood;
-import net.minecraft.item.ItemStack;
-import net.minecraft.potion.Potion;
-
+import com.drzenovka.foodrebalanced.audit.EatAuditLog;
 import com.drzenovka.foodrebalanced.command.CommandFoodRebalanced;
+import com.drzenovka.foodrebalanced.config.ConfigWatcher;
 import com.drzenovka.foodrebalanced.config.FoodConfigManager;
+import com.drzenovka.foodrebalanced.config.FoodItemIndex;
+import com.drzenovka.foodrebalanced.config.FoodRebalancedConfig;
+import com.drzenovka.foodrebalanced.config.PotionIndex;
+import com.drzenovka.foodrebalanced.core.FoodMetrics;
 import com.drzenovka.foodrebalanced.handler.FoodEffectHandler;
+import com.drzenovka.foodrebalanced.handler.PlayerSyncHandler;
+import com.drzenovka.foodrebalanced.handler.ServerTickHandler;
+import com.drzenovka.foodrebalanced.network.FoodSync;
+import com.drzenovka.foodrebalanced.player.ExhaustionScaler;
+import com.drzenovka.foodrebalanced.player.FoodEffectScheduler;
+import com.drzenovka.foodrebalanced.player.FoodPlayerHandler;
 
 import cpw.mods.fml.common.Mod;
+import cpw.mods.fml.common.SidedProxy;
 import cpw.mods.fml.common.event.FMLInitializationEvent;
 import cpw.mods.fml.common.event.FMLPostInitializationEvent;
 import cpw.mods.fml.common.event.FMLPreInitializationEvent;
 import cpw.mods.fml.common.event.FMLServerStartingEvent;
-import cpw.mods.fml.common.registry.GameData;
+import cpw.mods.fml.common.event.FMLServerStoppedEvent;
+import cpw.mods.fml.common.event.FMLServerStoppingEvent;
 
 @Mod(modid = FoodRebalanced.MODID, name = FoodRebalanced.NAME, version = FoodRebalanced.VERSION)
 public class FoodRebalanced {
@@ -30,7 +38,11 @@ public class FoodRebalanced {
 
     public static File configDir;
     private static final Random RAND = new Random();
-    public static Minecraft mc;
+
+    @SidedProxy(
+        clientSide = "com.drzenovka.foodrebalanced.ClientProxy",
+        serverSide = "com.drzenovka.foodrebalanced.CommonProxy")
+    public static CommonProxy proxy;
 
     // --- MOD LIFECYCLE EVENTS ---
 
@@ -39,9 +51,16 @@ public class FoodRebalanced {
         // Setup config directory
         configDir = new File(event.getModConfigurationDirectory(), FILE_DIR);
         if (!configDir.exists()) configDir.mkdirs();
+        FoodRebalancedConfig.load(new File(configDir, "foodrebalanced.cfg"));
 
         // Register the FoodEffectHandler for runtime events
         FoodEffectHandler.register();
+        ServerTickHandler.register();
+        PlayerSyncHandler.register();
+        FoodPlayerHandler.register();
+        FoodSync.register();
+        proxy.preInit(event);
+        FoodMetrics.registerMBean();
     }
 
     @Mod.EventHandler
@@ -56,83 +75,33 @@ public class FoodRebalanced {
         // Load the food config after all items (vanilla + modded) are registered
         FoodConfigManager.loadConfig();
         System.out.println("[FoodRebalanced] Food config loaded at server start.");
-    }
 
-    @Mod.EventHandler
-    public void postInit(FMLPostInitializationEvent event) {
-        applyJsonOverridesToFoodItems();
+        if (FoodRebalancedConfig.watchConfig) ConfigWatcher.start();
+        EatAuditLog.start();
+        ExhaustionScaler.configure();
     }
 
-    // --- APPLY FOOD OVERRIDES ---
-
-    private void applyJsonOverridesToFoodItems() {
-        for (Object obj : GameData.getItemRegistry()) {
-            if (!(obj instanceof ItemFood food)) continue;
-            String id = GameData.getItemRegistry()
-                .getNameForObject(food);
-
-            com.drzenovka.foodrebalanced.config.FoodConfigManager.FoodData data = FoodConfigManager
-                .getFoodData(new ItemStack(food));
-            if (data == null) continue;
-
-            try {
-                // Override hunger & saturation
-                Field healField = getFieldAny("healAmount", "field_77853_b");
-                Field saturationField = getFieldAny("saturationModifier", "field_77854_c");
-                healField.setInt(food, data.hunger != null ? data.hunger : 0);
-                saturationField.setFloat(food, data.saturation != null ? data.saturation : 0f);
-
-                // Reset default potion data
-                Field potionIdField = getFieldAny("potionId", "field_77851_ca");
-                Field potionDurationField = getFieldAny("potionDuration", "field_77852_cb");
-                Field potionAmplifierField = getFieldAny("potionAmplifier", "field_77853_cc");
-                Field potionEffectProbabilityField = getFieldAny("potionEffectProbability", "field_77854_cd");
-
-                potionIdField.setInt(food, -1);
-                potionDurationField.setInt(food, 0);
-                potionAmplifierField.setInt(food, 0);
-                potionEffectProbabilityField.setFloat(food, 0f);
-
-                // Apply first JSON effect for vanilla handling
-                if (data.effects != null && !data.effects.isEmpty()) {
-                    com.drzenovka.foodrebalanced.config.FoodConfigManager.FoodData.EffectData e = data.effects.get(0);
-                    Potion potion = getPotionByName(e.id);
-                    if (potion != null) {
-                        potionIdField.setInt(food, potion.id);
-                        potionDurationField.setInt(food, e.duration != null ? e.duration : 0);
-                        potionAmplifierField.setInt(food, e.amplifier != null ? e.amplifier : 0);
-                        potionEffectProbabilityField.setFloat(food, e.chance != null ? e.chance : 0f);
-                    }
-                }
-
-            } catch (Exception ex) {
-                System.err.println("[FoodRebalanced] Failed to apply data for " + id);
-                ex.printStackTrace();
-            }
-        }
-
-        System.out.println("[FoodRebalanced] Applied food overrides successfully.");
+    @Mod.EventHandler
+    public void serverStopping(FMLServerStoppingEvent event) {
+        ConfigWatcher.stop();
+        // Don't lose foods discovered since the last background write
+        FoodConfigManager.saveConfig();
     }
 
-    // --- UTILITY METHODS ---
-
-    private static Field getFieldAny(String... names) throws NoSuchFieldException {
-        for (String n : names) {
-            try {
-                Field f = ItemFood.class.getDeclaredField(n);
-                f.setAccessible(true);
-                return f;
-            } catch (NoSuchFieldException ignored) {}
-        }
-        throw new NoSuchFieldException("No matching field found in " + ItemFood.class);
+    @Mod.EventHandler
+    public void serverStopped(FMLServerStoppedEvent event) {
+        // Players have been saved with their pending effects
+        FoodEffectScheduler.clear();
+        ExhaustionScaler.clear();
+        EatAuditLog.stop();
     }
 
-    private static Potion getPotionByName(String id) {
-        if (id == null) return null;
-        if (id.startsWith("minecraft:")) id = id.substring(10);
-        for (Potion p : Potion.potionTypes) {
-            if (p != null && id.equalsIgnoreCase(p.getName())) return p;
-        }
-        return null;
+    @Mod.EventHandler
+    public void postInit(FMLPostInitializationEvent event) {
+        // Every mod has registered its potions by now
+        PotionIndex.build();
+        // Items are registered too, capture their vanilla food values before any override is applied
+        FoodItemIndex.build();
+        // Overrides reach the ItemFood fields whenever a config table is installed, see FoodItemOverrides
     }
 }
@@ -0,0 +1,149 @@
+package com.drzenovka.foodrebalanced.api;
+
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.item.ItemFood;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.FoodStats;
+
+import com.drzenovka.foodrebalanced.client.ClientFoodTable;
+import com.drzenovka.foodrebalanced.config.FoodConfigManager;
+import com.drzenovka.foodrebalanced.core.CompiledEffect;
+import com.drzenovka.foodrebalanced.core.FoodEntry;
+import com.drzenovka.foodrebalanced.core.FoodTable;
+
+import cpw.mods.fml.common.FMLCommonHandler;
+
+/**
+ * What a food is worth under this mod, for auto-feeders, troughs and machines feeding fake players, without
+ * going through the eat event. Values come from the live table, the one a player eating the stack in that
+ * dimension would get, before the variety penalty for foods eaten recently. Foods the table doesn't list yet
+ * report the item's own values. None of these methods allocate. On the client they read the values synced
+ * from the server, which only cover the base table.
+ */
+public final class FoodRebalancedAPI {
+
+    /** Receives the effects of a food one at a time, so no list has to be built */
+    public interface EffectVisitor {
+
+        /**
+         * One effect of the food. Delayed and repeating effects start {@code delayTicks} after eating and are
+         * applied {@code repeat} times in total
+         */
+        void accept(int potionId, int durationTicks, int amplifier, float chance, int delayTicks, int repeat);
+    }
+
+    private FoodRebalancedAPI() {}
+
+    /** Whether this mod has values for the stack, from the config or because it was eaten before */
+    public static boolean isListed(ItemStack stack, int dimension) {
+        return FoodConfigManager.lookup(table(dimension), stack) != null;
+    }
+
+    /** Hunger the stack restores in a dimension, 0 if it isn't food */
+    public static int getHunger(ItemStack stack, int dimension) {
+        FoodEntry entry = FoodConfigManager.lookup(table(dimension), stack);
+        if (entry != null) return entry.hunger;
+        return isFood(stack) ? ((ItemFood) stack.getItem()).func_150905_g(stack) : 0;
+    }
+
+    /** Saturation modifier of the stack in a dimension, 0 if it isn't food */
+    public static float getSaturation(ItemStack stack, int dimension) {
+        FoodEntry entry = FoodConfigManager.lookup(table(dimension), stack);
+        if (entry != null) return entry.saturation;
+        return isFood(stack) ? ((ItemFood) stack.getItem()).func_150906_h(stack) : 0f;
+    }
+
+    /** Hunger the stack would restore to this player, in the player's dimension and for their current food bars */
+    public static int getHunger(ItemStack stack, EntityPlayer player) {
+        FoodEntry entry = FoodConfigManager.lookup(table(player.worldObj.provider.dimensionId), stack);
+        if (entry == null) return getHunger(stack, player.worldObj.provider.dimensionId);
+
+        FoodStats stats = player.getFoodStats();
+        return entry.hunger(stats.getFoodLevel(), stats.foodSaturationLevel);
+    }
+
+    /** Saturation modifier the stack would have for this player, see {@link #getHunger(ItemStack, EntityPlayer)} */
+    public static float getSaturation(ItemStack stack, EntityPlayer player) {
+        FoodEntry entry = FoodConfigManager.lookup(table(player.worldObj.provider.dimensionId), stack);
+        if (entry == null) return getSaturation(stack, player.worldObj.provider.dimensionId);
+
+        FoodStats stats = player.getFoodStats();
+        return entry.saturation(stats.getFoodLevel(), stats.foodSaturationLevel);
+    }
+
+    /**
+     * Pass each effect eating the stack may apply to the visitor, including the vanilla potion of foods the
+     * table doesn't list. Returns how many there were.
+     */
+    public static int forEachEffect(ItemStack stack, int dimension, EffectVisitor visitor) {
+        FoodEntry entry = FoodConfigManager.lookup(table(dimension), stack);
+        if (entry == null) {
+            if (!isFood(stack)) return 0;
+            ItemFood food = (ItemFood) stack.getItem();
+            if (food.potionId <= 0) return 0;
+            visitor.accept(
+                food.potionId,
+                food.potionDuration * 20,
+                food.potionAmplifier,
+                food.potionEffectProbability,
+                0,
+                1);
+            return 1;
+        }
+
+        for (CompiledEffect effect : entry.effects) {
+            visitor.accept(
+                effect.potionId,
+                effect.durationTicks,
+                effect.amplifier,
+                effect.chance,
+                effect.delayTicks,
+                effect.repeat);
+        }
+        return entry.effects.length;
+    }
+
+    /**
+     * Hunger and saturation of every stack in the array, written at the same positions of the output arrays,
+     * which must be at least as long. Stacks that are null or not food get 0. All stacks are read from the same
+     * table, even if a reload finishes meanwhile. Returns the number of food stacks.
+     */
+    public static int query(ItemStack[] stacks, int dimension, int[] hunger, float[] saturation) {
+        if (hunger.length < stacks.length || saturation.length < stacks.length) {
+            throw new IllegalArgumentException("Output arrays are shorter than the " + stacks.length + " stacks");
+        }
+
+        FoodTable table = table(dimension);
+        int foods = 0;
+        for (int i = 0; i < stacks.length; i++) {
+            ItemStack stack = stacks[i];
+            FoodEntry entry = FoodConfigManager.lookup(table, stack);
+            if (entry != null) {
+                hunger[i] = entry.hunger;
+                saturation[i] = entry.saturation;
+                foods++;
+            } else if (isFood(stack)) {
+                ItemFood food = (ItemFood) stack.getItem();
+                hunger[i] = food.func_150905_g(stack);
+                saturation[i] = food.func_150906_h(stack);
+                foods++;
+            } else {
+                hunger[i] = 0;
+                saturation[i] = 0f;
+            }
+        }
+        return foods;
+    }
+
+    private static boolean isFood(ItemStack stack) {
+        return stack != null && stack.getItem() instanceof ItemFood;
+    }
+
+    private static FoodTable table(int dimension) {
+        if (FMLCommonHandler.instance()
+            .getEffectiveSide()
+            .isClient()) return ClientFoodTable.get();
+        return FoodConfigManager.getTables()
+            .forDimension(dimension);
+    }
+}
@@ -0,0 +1,271 @@
+package com.drzenovka.foodrebalanced.audit;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.potion.Potion;
+
+import com.drzenovka.foodrebalanced.FoodRebalanced;
+import com.drzenovka.foodrebalanced.config.FoodConfigManager;
+import com.drzenovka.foodrebalanced.config.FoodRebalancedConfig;
+import com.drzenovka.foodrebalanced.core.CompiledEffect;
+import com.drzenovka.foodrebalanced.core.EatRecordBuffer;
+import com.drzenovka.foodrebalanced.core.FoodEntry;
+
+import cpw.mods.fml.common.registry.GameData;
+
+/**
+ * Optional record of every eat event for balance analysis. The eat handler only adds a fixed-size record to
+ * an {@link EatRecordBuffer}; a background thread drains it once a second into CSV files in the audit
+ * directory, starting a new file at {@link FoodRebalancedConfig#auditSegmentKB} and deleting the oldest past
+ * {@link FoodRebalancedConfig#auditMaxSegments}. Events that find the buffer full are dropped and counted.
+ */
+public class EatAuditLog {
+
+    public static final String DIR = "audit";
+    private static final String SEGMENT_PREFIX = "eats-";
+    private static final String HEADER = "time,player,dimension,item,meta,hunger,saturation,effects";
+    private static final int DRAIN_BATCH = 4096;
+
+    /** Null while the log is off, only the server thread starts and stops it */
+    private static volatile EatRecordBuffer buffer;
+    private static ScheduledExecutorService executor;
+    private static final AtomicLong WRITTEN = new AtomicLong();
+
+    // Only touched on the writer thread
+    private static File dir;
+    private static Writer segment;
+    private static long segmentBytes;
+    private static final StringBuilder LINE = new StringBuilder(128);
+    private static final EatRecordBuffer.Consumer WRITER = EatAuditLog::write;
+
+    /** Start logging if the config asks for it, at server start */
+    public static synchronized void start() {
+        if (!FoodRebalancedConfig.auditLog || buffer != null) return;
+
+        dir = new File(FoodRebalanced.configDir, DIR);
+        if (!dir.exists()) dir.mkdirs();
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "FoodRebalanced Audit Writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        buffer = new EatRecordBuffer(FoodRebalancedConfig.auditBufferSize);
+        executor.scheduleWithFixedDelay(EatAuditLog::drain, 1, 1, TimeUnit.SECONDS);
+        System.out.println("[FoodRebalanced] Audit log enabled, writing to " + dir.getPath());
+    }
+
+    /** Write out what is buffered and stop, at server stop */
+    public static synchronized void stop() {
+        if (buffer == null) return;
+
+        ScheduledExecutorService stopping = executor;
+        stopping.execute(() -> {
+            drain();
+            closeSegment();
+        });
+        stopping.shutdown();
+        try {
+            stopping.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                .interrupt();
+        }
+        buffer = null;
+        executor = null;
+    }
+
+    /** Called from the eat handler on the server, a single buffer write. Bit i of rolled is effect i */
+    public static void record(EntityPlayer player, ItemStack stack, FoodEntry entry, int hunger, float saturation,
+        long rolled) {
+        EatRecordBuffer current = buffer;
+        if (current == null) return;
+
+        UUID id = player.getUniqueID();
+        current.add(
+            System.currentTimeMillis(),
+            id.getMostSignificantBits(),
+            id.getLeastSignificantBits(),
+            player.worldObj.provider.dimensionId,
+            Item.getIdFromItem(stack.getItem()),
+            stack.getItemDamage(),
+            hunger,
+            saturation,
+            entry.effects,
+            rolled);
+    }
+
+    /** One line for /fr stats */
+    public static String describe() {
+        EatRecordBuffer current = buffer;
+        if (current == null) return "Audit log: off";
+        return "Audit log: " + WRITTEN.get() + " written, " + current.dropped() + " dropped";
+    }
+
+    /**
+     * Write out what is buffered, then join every audit file into one export file in the background. The
+     * callback gets the export file, or null if it failed, on the server thread. Returns false if the log is off.
+     */
+    public static synchronized boolean export(Consumer<File> done) {
+        if (buffer == null) return false;
+
+        executor.execute(() -> {
+            File exported;
+            try {
+                drain();
+                closeSegment();
+                exported = joinSegments();
+            } catch (IOException e) {
+                System.err.println("[FoodRebalanced] Failed to export the audit log: " + e.getMessage());
+                exported = null;
+            }
+            File result = exported;
+            FoodConfigManager.runOnServerThread(() -> done.accept(result));
+        });
+        return true;
+    }
+
+    private static void drain() {
+        EatRecordBuffer current = buffer;
+        if (current == null) return;
+        try {
+            while (current.drain(WRITER, DRAIN_BATCH) == DRAIN_BATCH) {
+                // Keep going while there is a backlog
+            }
+            if (segment != null) segment.flush();
+        } catch (RuntimeException | IOException e) {
+            System.err.println("[FoodRebalanced] Failed to write the audit log: " + e.getMessage());
+            closeSegment();
+        }
+    }
+
+    private static void write(long time, long playerMost, long playerLeast, int dimension, int itemId, int meta,
+        int hunger, float saturation, CompiledEffect[] effects, long rolled) {
+        StringBuilder line = LINE;
+        line.setLength(0);
+        line.append(time)
+            .append(',')
+            .append(new UUID(playerMost, playerLeast))
+            .append(',')
+            .append(dimension)
+            .append(',')
+            .append(itemName(itemId))
+            .append(',')
+            .append(meta)
+            .append(',')
+            .append(hunger)
+            .append(',')
+            .append(saturation)
+            .append(',');
+        boolean first = true;
+        for (int i = 0; i < effects.length && i < 64; i++) {
+            if ((rolled & 1L << i) == 0) continue;
+            if (!first) line.append(';');
+            first = false;
+            CompiledEffect effect = effects[i];
+            line.append(potionName(effect.potionId))
+                .append(':')
+                .append(effect.amplifier)
+                .append(':')
+                .append(effect.durationTicks);
+        }
+        line.append('\n');
+
+        try {
+            if (segment == null || segmentBytes >= FoodRebalancedConfig.auditSegmentKB * 1024L) openSegment();
+            segment.append(line);
+            segmentBytes += line.length();
+            WRITTEN.incrementAndGet();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void openSegment() throws IOException {
+        closeSegment();
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date());
+        File file = new File(dir, SEGMENT_PREFIX + stamp + ".csv");
+        segment = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+        segment.write(HEADER);
+        segment.write('\n');
+        segmentBytes = HEADER.length() + 1;
+
+        File[] segments = segments();
+        for (int i = 0; i < segments.length - FoodRebalancedConfig.auditMaxSegments; i++) {
+            if (!segments[i].delete()) {
+                System.err.println("[FoodRebalanced] Could not delete old audit file " + segments[i].getName());
+            }
+        }
+    }
+
+    private static void closeSegment() {
+        if (segment == null) return;
+        try {
+            segment.close();
+        } catch (IOException e) {
+            System.err.println("[FoodRebalanced] Failed to close the audit file: " + e.getMessage());
+        }
+        segment = null;
+    }
+
+    /** All audit files, oldest first */
+    private static File[] segments() {
+        File[] files = dir.listFiles((parent, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(".csv"));
+        if (files == null) return new File[0];
+        Arrays.sort(files);
+        return files;
+    }
+
+    private static File joinSegments() throws IOException {
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        File export = new File(dir, "export-" + stamp + ".csv");
+        try (Writer out = new BufferedWriter(
+            new OutputStreamWriter(new FileOutputStream(export), StandardCharsets.UTF_8))) {
+            out.write(HEADER);
+            out.write('\n');
+            for (File file : segments()) {
+                try (BufferedReader in = new BufferedReader(
+                    new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+                    String line = in.readLine(); // header
+                    while ((line = in.readLine()) != null) {
+                        out.write(line);
+                        out.write('\n');
+                    }
+                }
+            }
+        }
+        return export;
+    }
+
+    private static String itemName(int itemId) {
+        Item item = Item.getItemById(itemId);
+        String name = item != null ? GameData.getItemRegistry()
+            .getNameForObject(item) : null;
+        return name != null ? name : String.valueOf(itemId);
+    }
+
+    private static String potionName(int potionId) {
+        Potion potion = potionId >= 0 && potionId < Potion.potionTypes.length ? Potion.potionTypes[potionId] : null;
+        return potion != null ? potion.getName() : String.valueOf(potionId);
+    }
+}
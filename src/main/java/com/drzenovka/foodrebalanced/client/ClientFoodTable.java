@@ -0,0 +1,136 @@
+package com.drzenovka.foodrebalanced.client;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.item.Item;
+
+import com.drzenovka.foodrebalanced.config.FoodItemOverrides;
+import com.drzenovka.foodrebalanced.config.GameItemRegistry;
+import com.drzenovka.foodrebalanced.core.FoodEntry;
+import com.drzenovka.foodrebalanced.core.FoodKeys;
+import com.drzenovka.foodrebalanced.core.FoodTable;
+import com.drzenovka.foodrebalanced.network.FoodSyncMessage;
+
+import cpw.mods.fml.common.FMLCommonHandler;
+import cpw.mods.fml.common.eventhandler.SubscribeEvent;
+import cpw.mods.fml.common.network.FMLNetworkEvent;
+import cpw.mods.fml.common.registry.GameData;
+
+/**
+ * The client's copy of the server's food table, built from {@link FoodSyncMessage}s. Its values are written
+ * into the client's ItemFood fields so tooltips and prediction match the server, and reverted to vanilla on
+ * disconnect. In single player the integrated server shares those fields and has already written them.
+ */
+public class ClientFoodTable {
+
+    private static Map<String, FoodEntry> entries = new LinkedHashMap<>();
+    private static Map<String, FoodEntry> pending;
+    /** Changes that arrived while a full sync was still coming in */
+    private static final List<FoodSyncMessage> deferred = new ArrayList<>();
+    private static volatile FoodTable table = FoodTable.EMPTY;
+    /** Whether the ItemFood fields hold values from a remote server */
+    private static boolean appliedToItems;
+
+    public static void register() {
+        FMLCommonHandler.instance()
+            .bus()
+            .register(new ClientFoodTable());
+    }
+
+    public static FoodTable get() {
+        return table;
+    }
+
+    /** Apply a sync packet, on the client thread */
+    public static void accept(FoodSyncMessage message) {
+        if ((message.flags & FoodSyncMessage.PART) == 0) {
+            // Changes made after the full sync was split, they apply once it is in
+            if (pending != null) {
+                deferred.add(message);
+            } else {
+                applyChanges(message);
+            }
+            return;
+        }
+
+        if ((message.flags & FoodSyncMessage.FULL) != 0) {
+            pending = new LinkedHashMap<>();
+            deferred.clear();
+        }
+        if (pending == null) return; // the first part was missed, wait for the next full sync
+
+        // Part of a full sync, nothing changes until the last part is in
+        for (FoodSyncMessage.Entry entry : message.entries) {
+            String key = keyOf(entry);
+            if (key != null && entry.data != null) pending.put(key, entry.data);
+        }
+        if ((message.flags & FoodSyncMessage.LAST) == 0) return;
+
+        entries = pending;
+        pending = null;
+        table = FoodTable.of(entries, GameItemRegistry.INSTANCE);
+        if (!sharesServerItems()) {
+            FoodItemOverrides.applyAll(table);
+            appliedToItems = true;
+        }
+        for (FoodSyncMessage changes : deferred) applyChanges(changes);
+        deferred.clear();
+    }
+
+    /** Apply added, changed and removed entries to the live table */
+    private static void applyChanges(FoodSyncMessage message) {
+        List<String> changed = new ArrayList<>(message.entries.size());
+        Map<String, FoodEntry> copy = new LinkedHashMap<>(entries);
+        for (FoodSyncMessage.Entry entry : message.entries) {
+            String key = keyOf(entry);
+            if (key == null) continue;
+
+            if (entry.data != null) {
+                copy.put(key, entry.data);
+            } else {
+                copy.remove(key);
+            }
+            changed.add(key);
+        }
+
+        entries = copy;
+        table = FoodTable.of(entries, GameItemRegistry.INSTANCE);
+        if (appliedToItems) FoodItemOverrides.applyChanged(table, changed);
+    }
+
+    @SubscribeEvent
+    public void onDisconnect(FMLNetworkEvent.ClientDisconnectionFromServerEvent event) {
+        Minecraft.getMinecraft()
+            .func_152344_a(ClientFoodTable::reset);
+    }
+
+    /** Forget the server's values and put the vanilla ones back */
+    private static void reset() {
+        entries = new LinkedHashMap<>();
+        pending = null;
+        deferred.clear();
+        table = FoodTable.EMPTY;
+        if (appliedToItems) {
+            FoodItemOverrides.applyAll(table);
+            appliedToItems = false;
+        }
+    }
+
+    private static boolean sharesServerItems() {
+        return Minecraft.getMinecraft()
+            .isIntegratedServerRunning();
+    }
+
+    private static String keyOf(FoodSyncMessage.Entry entry) {
+        Item item = Item.getItemById(entry.itemId);
+        if (item == null) return null;
+        return FoodKeys.getKey(
+            GameData.getItemRegistry()
+                .getNameForObject(item),
+            entry.meta);
+    }
+}
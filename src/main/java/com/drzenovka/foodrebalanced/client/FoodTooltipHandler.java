@@ -0,0 +1,173 @@
+package com.drzenovka.foodrebalanced.client;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemFood;
+import net.minecraft.item.ItemStack;
+import net.minecraft.potion.Potion;
+import net.minecraft.util.EnumChatFormatting;
+import net.minecraft.util.StatCollector;
+import net.minecraft.util.StringUtils;
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.event.entity.player.ItemTooltipEvent;
+
+import com.drzenovka.foodrebalanced.config.NbtFingerprints;
+import com.drzenovka.foodrebalanced.core.CompiledEffect;
+import com.drzenovka.foodrebalanced.core.FoodEntry;
+import com.drzenovka.foodrebalanced.core.FoodTable;
+import com.drzenovka.foodrebalanced.player.FoodPlayerData;
+
+import cpw.mods.fml.common.eventhandler.SubscribeEvent;
+
+/**
+ * Adds the synced hunger, saturation and effects of a food to its tooltip. Tooltips are drawn every frame and
+ * NEI draws hundreds at once, so the lines are formatted once per item and meta and kept until the client's
+ * food table is replaced. Stacks with NBT may match a variant entry, whose lines are kept by entry instead.
+ */
+public class FoodTooltipHandler {
+
+    private static final List<String> NONE = Collections.emptyList();
+
+    /** The table the cached lines were formatted from */
+    private FoodTable cachedFor;
+    /** Open addressing by food id, 0 marks a free slot as no food id is 0 */
+    private int[] keys = new int[256];
+    private List<String>[] lines = newLines(256);
+    private int size;
+    /** Lines of the variant entries, by entry, as entries are interned per table */
+    private final Map<FoodEntry, List<String>> variants = new IdentityHashMap<>();
+
+    public static void register() {
+        MinecraftForge.EVENT_BUS.register(new FoodTooltipHandler());
+    }
+
+    @SubscribeEvent
+    public void onTooltip(ItemTooltipEvent event) {
+        ItemStack stack = event.itemStack;
+        if (stack == null || !(stack.getItem() instanceof ItemFood)) return;
+
+        FoodTable table = ClientFoodTable.get();
+        if (table != cachedFor) clear(table);
+
+        int itemId = Item.getIdFromItem(stack.getItem());
+        if (stack.hasTagCompound()) {
+            FoodEntry variant = table
+                .getVariant(itemId, stack.getItemDamage(), stack.getTagCompound(), NbtFingerprints.INSTANCE);
+            if (variant != null) {
+                event.toolTip.addAll(variants.computeIfAbsent(variant, FoodTooltipHandler::format));
+                return;
+            }
+        }
+
+        int key = FoodPlayerData.foodId(itemId, stack.getItemDamage());
+        List<String> cached = get(key);
+        if (cached == null) {
+            FoodEntry entry = table.get(itemId, stack.getItemDamage());
+            cached = entry != null ? format(entry) : NONE;
+            put(key, cached);
+        }
+        if (!cached.isEmpty()) event.toolTip.addAll(cached);
+    }
+
+    private static List<String> format(FoodEntry entry) {
+        List<String> out = new ArrayList<>(1 + entry.effects.length);
+        out.add(
+            EnumChatFormatting.GRAY + "Hunger: "
+                + entry.hunger
+                + ", saturation: "
+                + formatNumber(entry.hunger * entry.saturation * 2f));
+        for (CompiledEffect effect : entry.effects) out.add(formatEffect(effect));
+        return Collections.unmodifiableList(out);
+    }
+
+    private static String formatEffect(CompiledEffect effect) {
+        Potion potion = effect.potionId >= 0 && effect.potionId < Potion.potionTypes.length
+            ? Potion.potionTypes[effect.potionId]
+            : null;
+        StringBuilder text = new StringBuilder();
+        text.append(potion != null && potion.isBadEffect() ? EnumChatFormatting.RED : EnumChatFormatting.BLUE);
+        text.append(
+            potion != null ? StatCollector.translateToLocal(potion.getName()) : "Potion " + effect.potionId);
+        if (effect.amplifier > 0) {
+            text.append(' ')
+                .append(StatCollector.translateToLocal("potion.potency." + effect.amplifier));
+        }
+        text.append(" (")
+            .append(StringUtils.ticksToElapsedTime(effect.durationTicks))
+            .append(')');
+        if (effect.chance < 1f) {
+            text.append(' ')
+                .append(Math.round(effect.chance * 100))
+                .append('%');
+        }
+        if (effect.delayTicks > 0) {
+            text.append(" after ")
+                .append(StringUtils.ticksToElapsedTime(effect.delayTicks));
+        }
+        if (effect.repeat > 1) {
+            text.append(", ")
+                .append(effect.repeat)
+                .append("x every ")
+                .append(StringUtils.ticksToElapsedTime(effect.intervalTicks));
+        }
+        return text.toString();
+    }
+
+    /** Saturation points restored, one decimal at most */
+    private static String formatNumber(float value) {
+        float rounded = Math.round(value * 10f) / 10f;
+        return rounded == (int) rounded ? String.valueOf((int) rounded) : String.valueOf(rounded);
+    }
+
+    private void clear(FoodTable table) {
+        cachedFor = table;
+        keys = new int[256];
+        lines = newLines(256);
+        size = 0;
+        variants.clear();
+    }
+
+    private List<String> get(int key) {
+        int mask = keys.length - 1;
+        for (int slot = mix(key) & mask;; slot = slot + 1 & mask) {
+            if (keys[slot] == key) return lines[slot];
+            if (keys[slot] == 0) return null;
+        }
+    }
+
+    private void put(int key, List<String> value) {
+        if ((size + 1) * 2 > keys.length) grow();
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) slot = slot + 1 & mask;
+        if (keys[slot] == 0) size++;
+        keys[slot] = key;
+        lines[slot] = value;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        List<String>[] oldLines = lines;
+        keys = new int[oldKeys.length * 2];
+        lines = newLines(oldKeys.length * 2);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) put(oldKeys[i], oldLines[i]);
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ h >>> 16;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static List<String>[] newLines(int size) {
+        return new List[size];
+    }
+}
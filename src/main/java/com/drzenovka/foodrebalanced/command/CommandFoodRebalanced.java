@@ -1,5 +1,6 @@
 package com.drzenovka.foodrebalanced.command;
 
+import java.io.File;
 import java.util.Collections;
 import java.util.List;
 
@@ -9,7 +10,9 @@ import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.util.ChatComponentText;
 
+import com.drzenovka.foodrebalanced.audit.EatAuditLog;
 import com.drzenovka.foodrebalanced.config.FoodConfigManager;
+import com.drzenovka.foodrebalanced.core.FoodMetrics;
 
 import cpw.mods.fml.common.FMLCommonHandler;
 
@@ -22,29 +25,64 @@ public class CommandFoodRebalanced extends CommandBase {
 
     @Override
     public String getCommandUsage(ICommandSender sender) {
-        return "/fr reload - Reloads the food_overrides.json configuration (OP only)";
+        return "/fr <reload|stats|export> - Reloads the food config files, shows runtime stats or exports the audit log"
+            + " (OP only)";
     }
 
     @Override
     public void processCommand(ICommandSender sender, String[] args) {
         if (args.length == 1 && args[0].equalsIgnoreCase("reload")) {
             if (canCommandSenderUseCommand(sender)) {
-                // FoodEffectHandler.reloadConfig();
-                FoodConfigManager.loadConfig();
-                // sender.addChatMessage(new ChatComponentText("[FoodRebalanced] loading from food_overrides.json."));
+                // Parsed off-thread, the result is announced once it goes live
+                if (FoodConfigManager.reloadConfigAsync()) {
+                    sender.addChatMessage(new ChatComponentText("[FoodRebalanced] Reloading the food config..."));
+                } else {
+                    sender.addChatMessage(new ChatComponentText("[FoodRebalanced] A reload is already in progress."));
+                }
             } else {
                 sender.addChatMessage(
                     new ChatComponentText("[FoodRebalanced] You do not have permission to execute this command."));
             }
+        } else if (args.length >= 1 && args[0].equalsIgnoreCase("stats")) {
+            if (!canCommandSenderUseCommand(sender)) {
+                sender.addChatMessage(
+                    new ChatComponentText("[FoodRebalanced] You do not have permission to execute this command."));
+            } else if (args.length == 2 && args[1].equalsIgnoreCase("reset")) {
+                FoodMetrics.resetAll();
+                sender.addChatMessage(new ChatComponentText("[FoodRebalanced] Stats reset."));
+            } else {
+                sender.addChatMessage(new ChatComponentText("[FoodRebalanced] Runtime stats:"));
+                for (String line : FoodMetrics.describe()) sender.addChatMessage(new ChatComponentText(" " + line));
+                sender.addChatMessage(new ChatComponentText(" " + EatAuditLog.describe()));
+            }
+        } else if (args.length == 1 && args[0].equalsIgnoreCase("export")) {
+            if (!canCommandSenderUseCommand(sender)) {
+                sender.addChatMessage(
+                    new ChatComponentText("[FoodRebalanced] You do not have permission to execute this command."));
+            } else if (EatAuditLog.export(file -> exported(sender, file))) {
+                sender.addChatMessage(new ChatComponentText("[FoodRebalanced] Exporting the audit log..."));
+            } else {
+                sender.addChatMessage(
+                    new ChatComponentText("[FoodRebalanced] The audit log is off, enable auditLog in the config."));
+            }
         } else {
             sender.addChatMessage(new ChatComponentText("Usage: " + getCommandUsage(sender)));
         }
     }
 
+    private static void exported(ICommandSender sender, File file) {
+        String message = file != null ? "Exported the audit log to " + file.getPath()
+            : "Exporting the audit log failed, see the server log.";
+        sender.addChatMessage(new ChatComponentText("[FoodRebalanced] " + message));
+    }
+
     @Override
     public List addTabCompletionOptions(ICommandSender sender, String[] args) {
         if (args.length == 1) {
-            return getListOfStringsMatchingLastWord(args, new String[] { "reload" });
+            return getListOfStringsMatchingLastWord(args, new String[] { "reload", "stats", "export" });
+        }
+        if (args.length == 2 && args[0].equalsIgnoreCase("stats")) {
+            return getListOfStringsMatchingLastWord(args, new String[] { "reset" });
         }
         return Collections.emptyList();
     }
@@ -0,0 +1,203 @@
+package com.drzenovka.foodrebalanced.config;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.drzenovka.foodrebalanced.FoodRebalanced;
+import com.drzenovka.foodrebalanced.core.AtomicFiles;
+import com.drzenovka.foodrebalanced.core.ConfigShard;
+import com.drzenovka.foodrebalanced.core.ConfigShards;
+import com.drzenovka.foodrebalanced.core.FoodConfigWriter;
+import com.drzenovka.foodrebalanced.core.FoodData;
+import com.drzenovka.foodrebalanced.core.FoodMetrics;
+import com.drzenovka.foodrebalanced.core.FoodTableCache;
+import com.google.gson.Gson;
+
+/**
+ * Write-behind persistence for the food config shards. Changes are queued on a single background thread,
+ * which keeps its own copy of every shard and writes the changed ones at most once per
+ * {@link FoodRebalancedConfig#saveIntervalSeconds}, each through a temp file renamed over the original.
+ * Each write also refreshes the binary {@link FoodTableCache} used for fast startup.
+ */
+public class ConfigPersister {
+
+    private final Gson gson;
+    private final String cacheName;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "FoodRebalanced Config Writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean writeScheduled = new AtomicBoolean();
+
+    // Last known size and modification time of every shard file, so the watcher can tell our writes from the user's
+    private final Map<String, long[]> stamps = new ConcurrentHashMap<>();
+
+    // Only touched on the writer thread
+    private Map<String, ConfigShard> shards = new LinkedHashMap<>();
+    private final Set<String> dirty = new HashSet<>();
+    private boolean cacheStale;
+    private boolean migrateLegacy;
+    private long fingerprint;
+
+    public ConfigPersister(Gson gson, String cacheName) {
+        this.gson = gson;
+        this.cacheName = cacheName;
+    }
+
+    /**
+     * Take over the shards of a completed load. Only the named dirty shards are rewritten, the cache is
+     * refreshed if anything had to be parsed, and a migrated legacy file is moved out of the way.
+     */
+    public void replace(Collection<ConfigShard> loaded, Set<String> changed, boolean parsed, boolean migrated,
+        long registryFingerprint) {
+        Map<String, ConfigShard> snapshot = new LinkedHashMap<>();
+        for (ConfigShard shard : loaded) snapshot.put(shard.name, shard);
+        Set<String> changedCopy = new HashSet<>(changed);
+
+        executor.execute(() -> {
+            shards = snapshot;
+            dirty.clear();
+            dirty.addAll(changedCopy);
+            cacheStale = parsed;
+            migrateLegacy = migrated;
+            fingerprint = registryFingerprint;
+
+            stamps.clear();
+            for (String name : shards.keySet()) stamp(name);
+            if (migrated) stamp(ConfigShards.LEGACY_FILE);
+        });
+        if (!changed.isEmpty() || parsed || migrated) scheduleWrite();
+    }
+
+    /** Queue a single new or changed entry, it goes to the shard of its namespace */
+    public void put(String key, FoodData data) {
+        executor.execute(() -> {
+            String name = ConfigShards.fileFor(key);
+            shards.computeIfAbsent(name, ConfigShard::create).document.put(key, data);
+            dirty.add(name);
+        });
+        scheduleWrite();
+    }
+
+    /** Write any pending changes now and wait for the write to finish */
+    public void flush() {
+        try {
+            executor.submit(this::write)
+                .get();
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                .interrupt();
+        } catch (ExecutionException e) {
+            System.err.println("[FoodRebalanced] Failed to flush the food config");
+            e.getCause()
+                .printStackTrace();
+        }
+    }
+
+    /** True if every shard file on disk is still exactly as this persister last read or wrote it */
+    public boolean isOwnWrite() {
+        List<File> files = ConfigShards.list(FoodRebalanced.configDir);
+        if (files.size() != stamps.size()) return false;
+
+        for (File file : files) {
+            if (!Arrays.equals(stamps.get(file.getName()), stampOf(file))) return false;
+        }
+        return true;
+    }
+
+    private void scheduleWrite() {
+        // Coalesce everything queued until the write runs
+        if (writeScheduled.compareAndSet(false, true)) {
+            executor.schedule(this::write, FoodRebalancedConfig.saveIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    private void write() {
+        writeScheduled.set(false);
+        if (dirty.isEmpty() && !cacheStale && !migrateLegacy) return;
+
+        long started = System.nanoTime();
+        for (Iterator<String> it = dirty.iterator(); it.hasNext();) {
+            ConfigShard shard = shards.get(it.next());
+            try {
+                shards.put(shard.name, shard.written(writeShard(shard)));
+                stamp(shard.name);
+                it.remove();
+                cacheStale = true;
+            } catch (IOException e) {
+                System.err.println("[FoodRebalanced] Failed to save " + shard.name);
+                e.printStackTrace();
+            }
+        }
+
+        // Its entries now live in the shards, keep the old file around but stop reading it
+        if (migrateLegacy && dirty.isEmpty()) {
+            File legacy = new File(FoodRebalanced.configDir, ConfigShards.LEGACY_FILE);
+            try {
+                AtomicFiles.replace(legacy, new File(legacy.getPath() + ".migrated"));
+                stamps.remove(ConfigShards.LEGACY_FILE);
+                migrateLegacy = false;
+                System.out.println("[FoodRebalanced] Migrated " + legacy.getName() + " into per-mod config files.");
+            } catch (IOException e) {
+                System.err.println("[FoodRebalanced] Failed to move " + legacy.getName() + " aside: " + e.getMessage());
+            }
+        }
+
+        // Shards that still failed to write have no hash to key the cache by
+        if (cacheStale && dirty.isEmpty()) {
+            try {
+                FoodTableCache.write(new File(FoodRebalanced.configDir, cacheName), fingerprint, shards.values());
+                cacheStale = false;
+            } catch (IOException e) {
+                System.err.println("[FoodRebalanced] Failed to save " + cacheName);
+                e.printStackTrace();
+            }
+        }
+        FoodMetrics.SAVE.record(System.nanoTime() - started);
+    }
+
+    /** Write one shard and return the SHA-1 of the bytes written */
+    private byte[] writeShard(ConfigShard shard) throws IOException {
+        File file = new File(FoodRebalanced.configDir, shard.name);
+        File temp = new File(FoodRebalanced.configDir, shard.name + ".tmp");
+        MessageDigest digest = FoodTableCache.newDigest();
+        try (Writer writer = new OutputStreamWriter(
+            new DigestOutputStream(new BufferedOutputStream(new FileOutputStream(temp)), digest),
+            StandardCharsets.UTF_8)) {
+            FoodConfigWriter.write(writer, gson, shard.document);
+        }
+        AtomicFiles.replace(temp, file);
+        return digest.digest();
+    }
+
+    private void stamp(String name) {
+        File file = new File(FoodRebalanced.configDir, name);
+        if (file.exists()) stamps.put(name, stampOf(file));
+    }
+
+    private static long[] stampOf(File file) {
+        return new long[] { file.lastModified(), file.length() };
+    }
+}
@@ -0,0 +1,110 @@
+package com.drzenovka.foodrebalanced.config;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+import com.drzenovka.foodrebalanced.FoodRebalanced;
+
+/**
+ * Optional hot reload: watches the config directory and its profiles, and once edits have settled for
+ * {@link FoodRebalancedConfig#watchDebounceMillis}, triggers the same off-thread reload as /fr reload.
+ * Writes made by the mod itself are recognised and ignored, it never writes profiles.
+ */
+public class ConfigWatcher {
+
+    private static final int BASE = 1;
+    private static final int PROFILE = 2;
+
+    private static Thread thread;
+    private static WatchService watchService;
+
+    public static synchronized void start() {
+        if (thread != null) return;
+
+        WatchKey profilesKey;
+        try {
+            watchService = FileSystems.getDefault()
+                .newWatchService();
+            FoodRebalanced.configDir.toPath()
+                .register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            // Created up front, a directory made later would go unwatched
+            File profiles = new File(FoodRebalanced.configDir, FoodConfigManager.PROFILE_DIR);
+            if (!profiles.exists()) profiles.mkdirs();
+            profilesKey = profiles.toPath()
+                .register(
+                    watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            System.err.println("[FoodRebalanced] Could not watch the config directory: " + e.getMessage());
+            try {
+                if (watchService != null) watchService.close();
+            } catch (IOException ignored) {}
+            watchService = null;
+            return;
+        }
+
+        WatchService service = watchService;
+        thread = new Thread(() -> run(service, profilesKey), "FoodRebalanced Config Watcher");
+        thread.setDaemon(true);
+        thread.start();
+        System.out.println("[FoodRebalanced] Watching " + FoodRebalanced.configDir + " for config changes.");
+    }
+
+    public static synchronized void stop() {
+        if (thread == null) return;
+
+        try {
+            watchService.close();
+        } catch (IOException ignored) {}
+        thread.interrupt();
+        thread = null;
+        watchService = null;
+    }
+
+    private static void run(WatchService service, WatchKey profilesKey) {
+        try {
+            while (true) {
+                int touched = drain(service.take(), profilesKey);
+
+                // Debounce: wait until the directory has been quiet for a while
+                WatchKey next;
+                while ((next = service.poll(FoodRebalancedConfig.watchDebounceMillis, TimeUnit.MILLISECONDS)) != null) {
+                    touched |= drain(next, profilesKey);
+                }
+                if (touched == 0 || touched == BASE && !FoodConfigManager.hasExternalChanges()) continue;
+
+                System.out.println("[FoodRebalanced] Config change detected, reloading.");
+                while (!FoodConfigManager.reloadConfigAsync()) {
+                    Thread.sleep(FoodRebalancedConfig.watchDebounceMillis);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped with the server
+        }
+    }
+
+    /** BASE or PROFILE if any of the events concern a config file in that directory, 0 if none do */
+    private static int drain(WatchKey key, WatchKey profilesKey) {
+        int directory = key == profilesKey ? PROFILE : BASE;
+        int touched = 0;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                touched = directory;
+            } else if (FoodConfigManager.isConfigFile(((Path) event.context()).toString())) {
+                touched = directory;
+            }
+        }
+        key.reset();
+        return touched;
+    }
+}
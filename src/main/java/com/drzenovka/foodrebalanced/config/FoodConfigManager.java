@@ -1,16 +1,24 @@
 package com.drzenovka.foodrebalanced.config;
 
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.Reader;
-import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-
+import java.util.Set;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemFood;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NBTTagCompound;
@@ -20,227 +28,527 @@ import net.minecraft.server.MinecraftServer;
 import net.minecraft.util.ChatComponentText;
 
 import com.drzenovka.foodrebalanced.FoodRebalanced;
+import com.drzenovka.foodrebalanced.core.ConfigShard;
+import com.drzenovka.foodrebalanced.core.ConfigShards;
+import com.drzenovka.foodrebalanced.core.EffectCompiler;
+import com.drzenovka.foodrebalanced.core.FoodData;
+import com.drzenovka.foodrebalanced.core.FoodEntry;
+import com.drzenovka.foodrebalanced.core.FoodInterner;
+import com.drzenovka.foodrebalanced.core.FoodKeys;
+import com.drzenovka.foodrebalanced.core.FoodMetrics;
+import com.drzenovka.foodrebalanced.core.FoodProfiles;
+import com.drzenovka.foodrebalanced.core.FoodTable;
+import com.drzenovka.foodrebalanced.core.FoodTableCache;
+import com.drzenovka.foodrebalanced.core.RecipeDerivation;
+import com.drzenovka.foodrebalanced.core.ValidationReport;
+import com.drzenovka.foodrebalanced.network.FoodSync;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
 
+import cpw.mods.fml.common.Loader;
+import cpw.mods.fml.common.ModContainer;
 import cpw.mods.fml.common.registry.GameData;
 
 public class FoodConfigManager {
 
     private static final Gson GSON = new GsonBuilder().setPrettyPrinting()
         .create();
-    private static final Map<String, FoodData> FOOD_DATA = new LinkedHashMap<>();
+    private static final String CONFIG_NAME = "the food config";
+    private static final String CACHE_FILE = "food_overrides.cache";
+    /** Directory of the profile files layered on the base config, assigned to dimensions in the mod settings */
+    static final String PROFILE_DIR = "profiles";
+    private static final ConfigPersister PERSISTER = new ConfigPersister(GSON, CACHE_FILE);
+    private static final ExecutorService LOADER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "FoodRebalanced Config Loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final ExecutorService SHARD_LOADER = Executors.newFixedThreadPool(shardThreads(), r -> {
+        Thread thread = new Thread(r, "FoodRebalanced Shard Loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final Queue<Runnable> SERVER_TASKS = new ConcurrentLinkedQueue<>();
+    private static final AtomicBoolean RELOADING = new AtomicBoolean();
+
+    /** The live tables, base and profiles. Only ever replaced as a whole, never modified in place */
+    private static volatile FoodProfiles tables = FoodProfiles.EMPTY;
+    /** Problems from the last load, invalid entries are left alone on disk until the user fixes them */
+    private static ValidationReport lastReport = new ValidationReport(CONFIG_NAME);
 
     /** Initialize / load config */
     public static void init() {
         loadConfig();
     }
 
+    /** Load the config on the calling thread, used at server start before anyone can eat */
     public static void loadConfig() {
+        try {
+            install(readTable());
+        } catch (Exception e) {
+            reportLoadFailure(e);
+        }
+    }
+
+    /**
+     * Load the config on a worker thread. The new table replaces the live one on the next server tick,
+     * and only if the whole load succeeded. Returns false if a reload is already running.
+     */
+    public static boolean reloadConfigAsync() {
+        if (!RELOADING.compareAndSet(false, true)) return false;
+
+        long started = System.nanoTime();
+        LOADER.execute(() -> {
+            try {
+                LoadResult loaded = readTable();
+                SERVER_TASKS.add(() -> {
+                    install(loaded);
+                    FoodMetrics.RELOAD.record(System.nanoTime() - started);
+                });
+            } catch (Exception e) {
+                SERVER_TASKS.add(() -> reportLoadFailure(e));
+            } finally {
+                RELOADING.set(false);
+            }
+        });
+        return true;
+    }
+
+    /** Queue work for the server thread, such as replying to a command once a background job is done */
+    public static void runOnServerThread(Runnable task) {
+        SERVER_TASKS.add(task);
+    }
+
+    /** Run work handed back from the loader thread, called at the start of every server tick */
+    public static void runServerTasks() {
+        Runnable task;
+        while ((task = SERVER_TASKS.poll()) != null) task.run();
+    }
+
+    /** Whether a file name in the config directory is one the food config is read from */
+    public static boolean isConfigFile(String fileName) {
+        return ConfigShards.isShardFile(fileName);
+    }
+
+    /** True if the config on disk was changed by something other than our own writes */
+    public static boolean hasExternalChanges() {
+        return !PERSISTER.isOwnWrite();
+    }
+
+    /** The base table, which is also what clients and the item fields see */
+    public static FoodTable getTable() {
+        return tables.base;
+    }
+
+    public static FoodProfiles getTables() {
+        return tables;
+    }
+
+    private static void install(LoadResult loaded) {
+        FoodTable previous = tables.base;
+        tables = loaded.tables;
+        FoodTable table = tables.base;
+        int profiles = tables.profiles()
+            .size();
+        lastReport = loaded.report;
+        PERSISTER.replace(loaded.shards, loaded.changed, loaded.parsed, loaded.migrated, loaded.fingerprint);
+
+        // Push the new values into the ItemFood fields and to clients, only touching entries that changed
+        if (previous == FoodTable.EMPTY) {
+            FoodItemOverrides.applyAll(table);
+        } else {
+            Set<String> changed = table.changedKeys(previous);
+            FoodItemOverrides.applyChanged(table, changed);
+            FoodSync.sendChanged(table, changed);
+        }
+
+        loaded.report.log();
+        String summary = "[FoodRebalanced] Loaded " + table.size()
+            + " food entries from "
+            + loaded.shards.size()
+            + (loaded.parsed ? " config files" : " cached config files")
+            + (profiles > 0 ? " and " + profiles + " profiles." : ".");
+        System.out.println(summary);
+        sendChatMessageToAllPlayers(summary);
+
+        int rejected = loaded.report.rejectedCount();
+        if (rejected > 0) {
+            sendChatMessageToAllPlayers(
+                "§c[FoodRebalanced] Skipped " + rejected
+                    + " invalid entries in "
+                    + CONFIG_NAME
+                    + ", see the server log for details.");
+        }
+    }
+
+    private static void reportLoadFailure(Exception e) {
+        System.err.println(
+            "[FoodRebalanced] Failed to load " + CONFIG_NAME + ", keeping the current table: " + e.getMessage());
+        e.printStackTrace();
+        sendChatMessageToAllPlayers("§c[FoodRebalanced] Failed to load " + CONFIG_NAME + ": " + e.getMessage());
+    }
+
+    /**
+     * Load every config shard and merge them into a new table. Invalid entries are reported and left out of
+     * the table, but kept in their shard so the next write doesn't drop them. Only unreadable or malformed
+     * files fail the load. Shards whose bytes match the compiled cache are taken from it without parsing.
+     */
+    private static LoadResult readTable() throws IOException {
+        long started = System.nanoTime();
         File configDir = FoodRebalanced.configDir;
         if (!configDir.exists()) configDir.mkdirs();
 
-        File configFile = new File(configDir, "food_overrides.json");
-
-        FOOD_DATA.clear();
-
-        // Load existing JSON
-        if (configFile.exists()) {
-            try (Reader reader = new FileReader(configFile)) {
-                JsonObject obj = GSON.fromJson(reader, JsonObject.class);
-
-                for (Map.Entry<String, JsonElement> entry : obj.entrySet()) {
-                    String key = entry.getKey();
-                    try {
-                        FoodData data = GSON.fromJson(entry.getValue(), FoodData.class);
-
-                        // Validate required fields
-                        if (data.hunger == null) throw new IllegalArgumentException("Missing hunger for food: " + key);
-                        if (data.saturation == null)
-                            throw new IllegalArgumentException("Missing saturation for food: " + key);
-
-                        // Validate potion effects
-                        if (data.effects != null) {
-                            for (FoodData.EffectData ed : data.effects) {
-                                if (ed.id == null || ed.id.isEmpty())
-                                    throw new IllegalArgumentException("Effect ID missing for food: " + key);
-                                if (ed.duration == null || ed.duration <= 0) throw new IllegalArgumentException(
-                                    "Effect duration invalid for food: " + key + ", effect: " + ed.id);
-                                if (ed.amplifier == null || ed.amplifier < 0) throw new IllegalArgumentException(
-                                    "Effect amplifier invalid for food: " + key + ", effect: " + ed.id);
-                                if (ed.chance == null || ed.chance < 0f || ed.chance > 1f)
-                                    throw new IllegalArgumentException(
-                                        "Effect chance invalid for food: " + key + ", effect: " + ed.id);
-                            }
-                        }
-
-                        // Passed validation
-                        FOOD_DATA.put(key, data);
-
-                    } catch (Exception e) {
-                        // Print to console
-                        System.err.println("[FoodRebalanced] Invalid JSON for food " + key + ": " + e.getMessage());
-                        e.printStackTrace();
-
-                        // Send chat message if a player is present
-                        sendChatMessageToAllPlayers(
-                            "§c[FoodRebalanced] Invalid JSON for food " + key + ": " + e.getMessage());
-
-                        // Abort loading early
-                        return;
-                    }
-                }
-
-                sendChatMessageToAllPlayers("[FoodRebalanced] Loaded " + FOOD_DATA.size() + " food entries from JSON.");
-                System.out.println("[FoodRebalanced] Loaded " + FOOD_DATA.size() + " food entries from JSON.");
+        long fingerprint = registryFingerprint();
+        Map<String, ConfigShard> cached = FoodTableCache.read(new File(configDir, CACHE_FILE), fingerprint);
+        List<ConfigShard> read = ConfigShards
+            .load(ConfigShards.list(configDir), cached, PotionIndex::resolve, SHARD_LOADER);
+
+        Map<String, ConfigShard> shards = new LinkedHashMap<>();
+        Set<String> known = new HashSet<>();
+        boolean parsed = false;
+        ConfigShard legacy = null;
+        for (ConfigShard shard : read) {
+            parsed |= shard != cached.get(shard.name);
+            if (ConfigShards.LEGACY_FILE.equals(shard.name)) {
+                legacy = shard;
+            } else {
+                shards.put(shard.name, shard);
+                known.addAll(shard.document.keySet());
+            }
+        }
+
+        // Move the old single file's entries into their namespace shards, unless a shard already has them
+        Set<String> changed = new HashSet<>();
+        boolean migrated = false;
+        if (legacy != null && legacy.report.errorCount() == 0) {
+            for (Map.Entry<String, FoodData> entry : legacy.document.entrySet()) {
+                if (!known.add(entry.getKey())) continue;
 
-            } catch (Exception e) {
-                System.err.println("[FoodRebalanced] Failed to load food_overrides.json: " + e.getMessage());
-                e.printStackTrace();
-                sendChatMessageToAllPlayers("[FoodRebalanced] Failed to load food_overrides.json: " + e.getMessage());
-                return;
+                String name = ConfigShards.fileFor(entry.getKey());
+                shards.computeIfAbsent(name, ConfigShard::create).document.put(entry.getKey(), entry.getValue());
+                changed.add(name);
             }
+            migrated = true;
+        } else if (legacy != null) {
+            // Keep reading it, with the lowest precedence, until its errors are fixed
+            shards.put(legacy.name, legacy);
+            known.addAll(legacy.document.keySet());
+            System.err.println(
+                "[FoodRebalanced] " + legacy.name + " has errors, it will be migrated into per-mod files once fixed.");
         }
 
-        // Generate missing vanilla entries
-        for (Object obj : GameData.getItemRegistry()) {
-            if (!(obj instanceof ItemFood)) continue;
-            ItemFood food = (ItemFood) obj;
-            String id = GameData.getItemRegistry()
-                .getNameForObject(food);
-            String key = getKey(id, 0);
-            if (id == null || FOOD_DATA.containsKey(key)) continue;
+        // Parsed and cached entries alike share equal effect lists, ids and boxes from here on
+        FoodInterner interner = new FoodInterner();
+        for (ConfigShard shard : shards.values()) {
+            for (FoodData data : shard.document.values()) interner.slim(data);
+        }
 
-            FOOD_DATA.put(key, createFoodData(new ItemStack(food)));
+        Map<String, FoodData> merged = ConfigShards.merge(shards.values());
+        ValidationReport resolved = new ValidationReport(CONFIG_NAME);
+        Map<String, FoodData> entries = FoodRules.resolve(merged, resolved);
+
+        // Generate missing entries, items covered by a rule don't need one and items whose formulas failed
+        // keep failing until the config is fixed
+        Map<String, FoodItemIndex.Entry> missing = new LinkedHashMap<>();
+        for (FoodItemIndex.Entry item : FoodItemIndex.all()) {
+            String key = FoodKeys.getKey(item.name, 0);
+            String wildcard = FoodKeys.getKey(item.name, FoodKeys.ANY_META);
+            if (entries.containsKey(key) || entries.containsKey(wildcard)) continue;
+            if (resolved.isRejected(key) || resolved.isRejected(wildcard)) continue;
+            if (known.add(key)) missing.put(key, item);
+        }
+        Map<String, FoodData> derived = missing.isEmpty() || !FoodRebalancedConfig.deriveFromRecipes
+            ? Collections.emptyMap()
+            : deriveFromRecipes(entries, missing.keySet());
+        for (Map.Entry<String, FoodItemIndex.Entry> entry : missing.entrySet()) {
+            String key = entry.getKey();
+            FoodItemIndex.Entry item = entry.getValue();
+            FoodData values = derived.get(key);
+            FoodData data = values != null ? derivedFoodData(item, values) : createFoodData(item);
+            String name = ConfigShards.fileFor(key);
+            shards.computeIfAbsent(name, ConfigShard::create).document.put(key, data);
+            changed.add(name);
+            merged.put(key, data);
+            entries.put(key, data);
         }
 
-        saveConfig();
+        List<ValidationReport> reports = new ArrayList<>();
+        for (ConfigShard shard : read) reports.add(shard.report);
+        reports.add(resolved);
+
+        // Each profile is the base config with its own entries on top, resolved into a table of its own
+        Map<String, FoodTable> profiles = new LinkedHashMap<>();
+        List<ConfigShard> profileFiles = ConfigShards.load(
+            ConfigShards.list(new File(configDir, PROFILE_DIR)),
+            Collections.emptyMap(),
+            PotionIndex::resolve,
+            SHARD_LOADER);
+        for (ConfigShard profile : profileFiles) {
+            for (FoodData data : profile.document.values()) interner.slim(data);
+            Map<String, FoodData> layered = new LinkedHashMap<>(merged);
+            layered.putAll(ConfigShards.merge(Collections.singleton(profile)));
+            String name = profile.name.substring(0, profile.name.length() - ConfigShards.EXTENSION.length());
+            ValidationReport profileReport = new ValidationReport(profile.name);
+            profiles.put(
+                name,
+                FoodTable.build(FoodRules.resolve(layered, profileReport), GameItemRegistry.INSTANCE, interner));
+            reports.add(profileReport);
+            reports.add(profile.report);
+        }
+        ValidationReport report = ValidationReport.combine(CONFIG_NAME, reports);
+
+        FoodProfiles loaded = FoodProfiles.build(
+            FoodTable.build(entries, GameItemRegistry.INSTANCE, interner),
+            profiles,
+            FoodRebalancedConfig.dimensionProfiles);
+        FoodMetrics.LOAD.record(System.nanoTime() - started);
+        return new LoadResult(loaded, shards.values(), report, fingerprint, changed, parsed, migrated);
     }
 
-    /** Save current FOOD_DATA to JSON */
-    public static void saveConfig() {
-        File configFile = new File(FoodRebalanced.configDir, "food_overrides.json");
-        try (Writer writer = new FileWriter(configFile)) {
-            JsonObject obj = new JsonObject();
-            for (Map.Entry<String, FoodData> entry : FOOD_DATA.entrySet()) {
-                obj.add(entry.getKey(), GSON.toJsonTree(entry.getValue()));
-            }
-            GSON.toJson(obj, writer);
-        } catch (IOException e) {
-            System.err.println("[FoodRebalanced] Failed to save food_overrides.json");
-            e.printStackTrace();
+    /**
+     * Fingerprint of what a compiled table depends on besides the JSON: the loaded mods and their versions,
+     * the size of the item registry and the potion names with their ids. Cheap enough to not need a registry walk.
+     */
+    private static long registryFingerprint() {
+        long hash = 17;
+        for (ModContainer mod : Loader.instance()
+            .getActiveModList()) {
+            hash = 31 * hash + mod.getModId()
+                .hashCode();
+            hash = 31 * hash + String.valueOf(mod.getVersion())
+                .hashCode();
+        }
+        hash = 31 * hash + GameData.getItemRegistry()
+            .getKeys()
+            .size();
+        // The cache stores potion ids, so a potion moved to another id must change the fingerprint
+        Potion[] potions = Potion.potionTypes;
+        for (int id = 0; id < potions.length; id++) {
+            if (potions[id] == null) continue;
+            hash = 31 * hash + id;
+            hash = 31 * hash + String.valueOf(potions[id].getName())
+                .hashCode();
         }
+        return hash;
     }
 
-    public static void registerEatenItem(ItemStack stack) {
-        if (stack == null) return;
+    /** Shard loading is mostly parsing, a few threads are plenty */
+    private static int shardThreads() {
+        return Math.max(
+            1,
+            Math.min(
+                4,
+                Runtime.getRuntime()
+                    .availableProcessors()));
+    }
+
+    /** Write any queued changes to the config shards now, blocking until done */
+    public static void saveConfig() {
+        PERSISTER.flush();
+    }
+
+    /** Registers a food missing from the config and returns its entry, or null if it can't be keyed */
+    public static FoodEntry registerEatenItem(ItemStack stack) {
+        if (stack == null) return null;
 
         String key = getKey(stack);
-        if (key == null || FOOD_DATA.containsKey(key)) return;
+        if (key == null) return null;
+
+        FoodProfiles current = tables;
+        FoodEntry entry = current.base.get(key);
+        if (entry != null) return entry;
 
-        FOOD_DATA.put(key, createFoodData(stack));
+        FoodData data = createFoodData(stack);
+        entry = FoodEntry.of(data);
+        tables = current.with(key, Item.getIdFromItem(stack.getItem()), stack.getItemDamage(), entry);
         System.out.println("[FoodRebalanced] Registered new edible item: " + key);
 
-        saveConfig();
+        if (!lastReport.isRejected(key)) PERSISTER.put(key, data);
+        FoodSync.sendChanged(tables.base, Collections.singleton(key));
+        return entry;
     }
 
-    /** Create FoodData for an ItemStack, detecting hunger, saturation, and effects */
-    private static FoodData createFoodData(ItemStack stack) {
-        FoodData data = new FoodData();
-        data.name = stack.getDisplayName();
-
-        if (stack.getItem() instanceof ItemFood food) {
-            data.hunger = food.func_150905_g(stack);
-            data.saturation = food.func_150906_h(stack);
-            data.effects = new ArrayList<>();
-
-            // Detect vanilla potion effects
-            try {
-                int potionId = food.potionId;
-                int duration = food.potionDuration;
-                int amplifier = food.potionAmplifier;
-                float chance = food.potionEffectProbability;
-
-                if (potionId > 0 && potionId < Potion.potionTypes.length) {
-                    Potion potion = Potion.potionTypes[potionId];
-                    if (potion != null) {
-                        data.effects
-                            .add(new FoodData.EffectData("minecraft:" + potion.getName(), duration, amplifier, chance));
-                    }
-                }
-            } catch (Exception ignored) {}
-
-            addNBTPotionEffects(stack, data);
+    /**
+     * Values for the missing foods that are crafted or smelted from other foods, worked out from the recipe
+     * graph. Only runs for foods without an entry, once written the entries are read like any other.
+     */
+    private static Map<String, FoodData> deriveFromRecipes(Map<String, FoodData> entries, Set<String> targets)
+        throws IOException {
+        long started = System.nanoTime();
+        List<RecipeDerivation.Recipe> recipes;
+        try {
+            recipes = RecipeGraph.extract(SHARD_LOADER);
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                .interrupt();
+            throw new IOException("Interrupted while reading recipes", e);
+        } catch (ExecutionException e) {
+            System.err.println("[FoodRebalanced] Failed to read recipes, using vanilla values: " + e.getCause());
+            return Collections.emptyMap();
         }
 
-        if (data.effects == null) data.effects = new ArrayList<>();
+        RecipeDerivation derivation = new RecipeDerivation(
+            recipes,
+            key -> resolvedEntry(entries, key),
+            FoodConfigManager::vanillaValues);
+        Map<String, FoodData> derived = derivation.derive(targets);
+        System.out.println(
+            "[FoodRebalanced] Derived " + derived.size()
+                + " of "
+                + targets.size()
+                + " new foods from "
+                + recipes.size()
+                + " recipes in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)
+                + " ms, skipped "
+                + derivation.cycles()
+                + " circular recipes.");
+        return derived;
+    }
+
+    /** The resolved entry for an item key: the exact meta, the item's wildcard, or meta 0 for a wildcard key */
+    private static FoodData resolvedEntry(Map<String, FoodData> entries, String key) {
+        FoodData data = entries.get(key);
+        if (data != null) return data;
 
+        String name = FoodKeys.itemName(key);
+        if (name == null) return null;
+        data = entries.get(FoodKeys.getKey(name, FoodKeys.ANY_META));
+        if (data == null && key.equals(FoodKeys.getKey(name, FoodKeys.ANY_META))) {
+            data = entries.get(FoodKeys.getKey(name, 0));
+        }
         return data;
     }
 
-    /** Get FoodData for an ItemStack */
-    public static FoodData getFoodData(ItemStack stack) {
-        if (stack == null) return null;
+    /** The vanilla values of an indexed food, or null for anything else */
+    private static FoodData vanillaValues(String key) {
+        String name = FoodKeys.itemName(key);
+        FoodItemIndex.Entry item = name != null ? FoodItemIndex.get(name) : null;
+        if (item == null) return null;
 
-        String id = GameData.getItemRegistry()
-            .getNameForObject(stack.getItem());
-        int meta = stack.getItemDamage();
+        int slot = Math.max(item.indexOf(Math.max(FoodKeys.meta(key), 0)), 0);
+        return new FoodData(item.hunger[slot], item.saturation[slot]);
+    }
 
-        String keyExact = getKey(id, meta);
-        FoodData data = FOOD_DATA.get(keyExact);
+    /** A generated entry with derived food values, keeping the item's own potion */
+    private static FoodData derivedFoodData(FoodItemIndex.Entry item, FoodData values) {
+        FoodData data = vanillaFoodData(item.displayName(), values.hunger, values.saturation, item);
+        EffectCompiler.compile(FoodKeys.getKey(item.name, 0), data, PotionIndex::resolve, null);
+        return data;
+    }
 
-        if (data == null) {
-            // Fallback to base (meta-agnostic) definition
-            String keyBase = getKey(id, -1);
-            data = FOOD_DATA.get(keyBase);
-        }
+    /** Create the meta 0 entry for an indexed food item from its vanilla values */
+    private static FoodData createFoodData(FoodItemIndex.Entry item) {
+        int slot = item.indexOf(0);
+        if (slot < 0) return createFoodData(new ItemStack(item.item));
 
+        FoodData data = vanillaFoodData(item.displayName(), item.hunger[slot], item.saturation[slot], item);
+        EffectCompiler.compile(FoodKeys.getKey(item.name, 0), data, PotionIndex::resolve, null);
         return data;
     }
 
-    /** Data structure compatible with Gson */
-    public static class FoodData {
-
-        public String name;
-        public Integer hunger;
-        public Float saturation;
-        public List<EffectData> effects = new ArrayList<>();
+    /** Create FoodData for an ItemStack, detecting hunger, saturation, and effects */
+    private static FoodData createFoodData(ItemStack stack) {
+        FoodData data;
+        Item item = stack.getItem();
+        String name = GameData.getItemRegistry()
+            .getNameForObject(item);
+        FoodItemIndex.Entry indexed = name != null ? FoodItemIndex.get(name) : null;
+        int slot = indexed != null ? indexed.indexOf(stack.getItemDamage()) : -1;
+
+        if (slot >= 0) {
+            // Indexed values predate our overrides, the item fields may already hold config values
+            data = vanillaFoodData(stack.getDisplayName(), indexed.hunger[slot], indexed.saturation[slot], indexed);
+        } else if (item instanceof ItemFood food) {
+            data = vanillaFoodData(stack.getDisplayName(), food.func_150905_g(stack), food.func_150906_h(stack), null);
+        } else {
+            data = new FoodData();
+            data.name = stack.getDisplayName();
+        }
 
-        public FoodData() {}
+        addNBTPotionEffects(stack, data);
+        EffectCompiler.compile(getKey(stack), data, PotionIndex::resolve, null);
+        return data;
+    }
 
-        public FoodData(int hunger, float saturation) {
-            this.hunger = hunger;
-            this.saturation = saturation;
+    /** An entry with the given food values and the item's vanilla potion, if it has one */
+    private static FoodData vanillaFoodData(String name, int hunger, float saturation, FoodItemIndex.Entry item) {
+        FoodData data = new FoodData();
+        data.name = name;
+        data.hunger = hunger;
+        data.saturation = saturation;
+
+        int potionId = item != null ? item.potionId : 0;
+        if (potionId > 0 && potionId < Potion.potionTypes.length && Potion.potionTypes[potionId] != null) {
+            data.effects.add(
+                new FoodData.EffectData(
+                    "minecraft:" + Potion.potionTypes[potionId].getName(),
+                    item.potionDuration,
+                    item.potionAmplifier,
+                    item.potionChance));
         }
+        return data;
+    }
 
-        public static class EffectData {
+    /**
+     * The entry for an ItemStack in a dimension's table: a matching NBT variant, the exact meta, then the
+     * meta-agnostic (-1) entry
+     */
+    public static FoodEntry getFoodData(ItemStack stack, int dimension) {
+        return find(tables.forDimension(dimension), stack, true);
+    }
+
+    /** The entry for an ItemStack in the given table, as {@link #getFoodData} but not counted as an eat lookup */
+    public static FoodEntry lookup(FoodTable table, ItemStack stack) {
+        return find(table, stack, false);
+    }
 
-            public String id;
-            public Integer duration;
-            public Integer amplifier;
-            public Float chance;
+    private static FoodEntry find(FoodTable table, ItemStack stack, boolean count) {
+        if (stack == null || stack.getItem() == null) return null;
 
-            public EffectData(String id, int duration, int amplifier, float chance) {
-                this.id = id;
-                this.duration = duration;
-                this.amplifier = amplifier;
-                this.chance = chance;
+        int itemId = Item.getIdFromItem(stack.getItem());
+        FoodEntry data;
+        if (stack.hasTagCompound()) {
+            data = table.getVariant(itemId, stack.getItemDamage(), stack.getTagCompound(), NbtFingerprints.INSTANCE);
+            if (data != null) {
+                if (count) FoodMetrics.NBT_VARIANT_HITS.increment();
+                return data;
             }
         }
 
-        public static class EnchantData {
-
-            public String id;
-            public Integer level;
+        data = table.getExact(itemId, stack.getItemDamage());
+        if (data != null) {
+            if (count) FoodMetrics.EXACT_HITS.increment();
+            return data;
+        }
 
-            public EnchantData() {}
+        data = table.getWildcard(itemId);
+        if (data != null && count) FoodMetrics.META_FALLBACK_HITS.increment();
+        return data;
+    }
 
-            public EnchantData(String id, int level) {
-                this.id = id;
-                this.level = level;
-            }
+    /** Outcome of a successful load, handed from the loader thread to the server thread */
+    private static class LoadResult {
+
+        final FoodProfiles tables;
+        final Collection<ConfigShard> shards;
+        final ValidationReport report;
+        final long fingerprint;
+        /** Shards with entries that are not on disk yet */
+        final Set<String> changed;
+        /** Whether any shard had to be parsed, rather than coming from the cache */
+        final boolean parsed;
+        final boolean migrated;
+
+        LoadResult(FoodProfiles tables, Collection<ConfigShard> shards, ValidationReport report, long fingerprint,
+            Set<String> changed, boolean parsed, boolean migrated) {
+            this.tables = tables;
+            this.shards = shards;
+            this.report = report;
+            this.fingerprint = fingerprint;
+            this.changed = changed;
+            this.parsed = parsed;
+            this.migrated = migrated;
         }
     }
 
@@ -268,16 +576,11 @@ public class FoodConfigManager {
         }
     }
 
-    private static String getKey(String id, int meta) {
-        if (id == null) return null;
-        return id + ":" + meta;
-    }
-
     private static String getKey(ItemStack stack) {
         if (stack == null) return null;
         String id = GameData.getItemRegistry()
             .getNameForObject(stack.getItem());
-        return getKey(id, stack.getItemDamage());
+        return FoodKeys.getKey(id, stack.getItemDamage());
     }
 
     /** Utility to send chat messages to all players in red text */
@@ -0,0 +1,156 @@
+package com.drzenovka.foodrebalanced.config;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemFood;
+import net.minecraft.item.ItemStack;
+
+import com.drzenovka.foodrebalanced.core.CompiledEffect;
+
+import cpw.mods.fml.common.registry.GameData;
+
+/**
+ * Every registered {@link ItemFood} with its registry name, known metas and vanilla food values. Built once
+ * after all mods have registered their items and before any overrides are written into the item fields, so
+ * config generation and override application share one registry walk and always see the vanilla values.
+ */
+public class FoodItemIndex {
+
+    /** Highest meta probed for subtypes, and how many metas in a row may add nothing before the walk stops */
+    private static final int MAX_PROBED_META = 4096;
+    private static final int MAX_IDLE_METAS = 64;
+
+    private static List<Entry> entries = Collections.emptyList();
+    private static Map<String, Entry> byName = Collections.emptyMap();
+
+    /** Walk the item registry, call once all mods have registered their items */
+    public static synchronized void build() {
+        List<Entry> list = new ArrayList<>();
+        Map<String, Entry> names = new HashMap<>();
+        for (Object obj : GameData.getItemRegistry()) {
+            if (!(obj instanceof ItemFood food)) continue;
+            String name = GameData.getItemRegistry()
+                .getNameForObject(food);
+            if (name == null) continue;
+
+            Entry entry = new Entry(food, name, subtypeMetas(food));
+            list.add(entry);
+            names.put(name, entry);
+        }
+
+        entries = Collections.unmodifiableList(list);
+        byName = names;
+        System.out.println("[FoodRebalanced] Indexed " + list.size() + " food items.");
+    }
+
+    public static Collection<Entry> all() {
+        return entries;
+    }
+
+    /** The entry for a registry name, or null if it isn't a food item */
+    public static Entry get(String name) {
+        return byName.get(name);
+    }
+
+    /**
+     * Metas that are a subtype of their own: each meta whose name or food values differ from every lower one.
+     * getSubItems would be the natural source but only exists on the client, and a dedicated server has to
+     * generate the same entries as single player for the same pack, so both sides probe the item instead. The
+     * walk stops after a run of metas that add nothing new.
+     */
+    private static int[] subtypeMetas(ItemFood food) {
+        if (!food.getHasSubtypes()) return new int[] { 0 };
+
+        List<Integer> metas = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        int idle = 0;
+        for (int meta = 0; meta < MAX_PROBED_META && idle < MAX_IDLE_METAS; meta++) {
+            String subtype;
+            try {
+                ItemStack stack = new ItemStack(food, 1, meta);
+                subtype = food.getUnlocalizedName(stack) + "|"
+                    + food.func_150905_g(stack)
+                    + "|"
+                    + food.func_150906_h(stack);
+            } catch (RuntimeException e) {
+                // Many items index a name array by meta without a bounds check
+                idle++;
+                continue;
+            }
+            if (seen.add(subtype)) {
+                metas.add(meta);
+                idle = 0;
+            } else {
+                idle++;
+            }
+        }
+        return metas.isEmpty() ? new int[] { 0 }
+            : metas.stream()
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /** One food item with the values it had before any override touched it */
+    public static final class Entry {
+
+        public final ItemFood item;
+        public final String name;
+        public final int itemId;
+        public final int[] metas;
+        public final int[] hunger;
+        public final float[] saturation;
+        public final int potionId;
+        public final int potionDuration; // seconds, as ItemFood stores it
+        public final int potionAmplifier;
+        public final float potionChance;
+
+        private String displayName;
+
+        Entry(ItemFood item, String name, int[] metas) {
+            this.item = item;
+            this.name = name;
+            this.itemId = Item.getIdFromItem(item);
+            this.metas = metas;
+            this.hunger = new int[metas.length];
+            this.saturation = new float[metas.length];
+            for (int i = 0; i < metas.length; i++) {
+                ItemStack stack = new ItemStack(item, 1, metas[i]);
+                hunger[i] = item.func_150905_g(stack);
+                saturation[i] = item.func_150906_h(stack);
+            }
+            this.potionId = item.potionId;
+            this.potionDuration = item.potionDuration;
+            this.potionAmplifier = item.potionAmplifier;
+            this.potionChance = item.potionEffectProbability;
+        }
+
+        /** Position of a meta in {@link #metas}, or -1 if it isn't a known subtype */
+        public int indexOf(int meta) {
+            for (int i = 0; i < metas.length; i++) {
+                if (metas[i] == meta) return i;
+            }
+            return -1;
+        }
+
+        /** The item's own potion as a compiled effect, for entries that keep the vanilla effects */
+        public CompiledEffect[] vanillaEffects() {
+            if (potionId <= 0) return CompiledEffect.NONE;
+            int ticks = potionDuration * 20;
+            return new CompiledEffect[] { new CompiledEffect(potionId, ticks, potionAmplifier, potionChance) };
+        }
+
+        /** Localised name of the meta 0 stack, looked up the first time an entry for this item is written */
+        public String displayName() {
+            if (displayName == null) displayName = new ItemStack(item, 1, 0).getDisplayName();
+            return displayName;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.drzenovka.foodrebalanced.config;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import com.drzenovka.foodrebalanced.core.FoodEntry;
+import com.drzenovka.foodrebalanced.core.FoodKeys;
+import com.drzenovka.foodrebalanced.core.FoodTable;
+
+/** Writes resolved food values into the ItemFood fields, so tooltips and vanilla code paths agree with the config */
+public class FoodItemOverrides {
+
+    /** Apply the table to every registered food item */
+    public static void applyAll(FoodTable table) {
+        int applied = 0;
+        for (FoodItemIndex.Entry item : FoodItemIndex.all()) {
+            if (apply(item, table)) applied++;
+        }
+
+        System.out.println("[FoodRebalanced] Applied food overrides to " + applied + " items.");
+    }
+
+    /** Re-apply only the items whose entries changed */
+    public static void applyChanged(FoodTable table, Collection<String> changedKeys) {
+        Set<FoodItemIndex.Entry> items = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (String key : changedKeys) {
+            String name = FoodKeys.itemName(key);
+            FoodItemIndex.Entry item = name != null ? FoodItemIndex.get(name) : null;
+            if (item != null) items.add(item);
+        }
+
+        for (FoodItemIndex.Entry item : items) apply(item, table);
+        if (!items.isEmpty()) {
+            System.out.println("[FoodRebalanced] Re-applied food overrides to " + items.size() + " changed items.");
+        }
+    }
+
+    /** The item fields aren't meta aware, so they take the meta 0 (or wildcard) entry, or vanilla without one */
+    private static boolean apply(FoodItemIndex.Entry item, FoodTable table) {
+        FoodEntry data = table.get(item.itemId, 0);
+        if (data == null) {
+            ItemFoodAccess.restore(item);
+            return false;
+        }
+
+        ItemFoodAccess.apply(item.item, data);
+        return true;
+    }
+}
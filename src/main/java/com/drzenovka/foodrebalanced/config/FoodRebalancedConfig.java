@@ -0,0 +1,276 @@
+package com.drzenovka.foodrebalanced.config;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.minecraftforge.common.config.Configuration;
+
+/** Mod settings from foodrebalanced.cfg, separate from the per-mod food config files */
+public class FoodRebalancedConfig {
+
+    public static final String CATEGORY_PERSISTENCE = "persistence";
+    public static final String CATEGORY_RELOAD = "reload";
+    public static final String CATEGORY_VARIETY = "variety";
+    public static final String CATEGORY_PROFILES = "profiles";
+    public static final String CATEGORY_AUDIT = "audit";
+    public static final String CATEGORY_CLIENT = "client";
+    public static final String CATEGORY_RECIPES = "recipes";
+    public static final String CATEGORY_EXHAUSTION = "exhaustion";
+
+    /** Minimum delay between two writes of a food config file */
+    public static int saveIntervalSeconds = 30;
+
+    /** Reload automatically when the config files are edited */
+    public static boolean watchConfig = false;
+    public static int watchDebounceMillis = 500;
+
+    /** Foods remembered per player for diminishing returns, 0 turns variety tracking off */
+    public static int varietyHistory = 8;
+    /** Multiplier by how often the food is already in the history, the last one applies to any higher count */
+    public static float[] varietyCurve = { 1.0f, 0.8f, 0.6f, 0.4f, 0.25f };
+
+    /** Profile name by dimension id, the profiles are read from the profiles directory */
+    public static Map<Integer, String> dimensionProfiles = Collections.emptyMap();
+
+    /** Record every eat event to CSV files in the audit directory */
+    public static boolean auditLog = false;
+    /** Eat events held in memory until the writer catches up, more are dropped */
+    public static int auditBufferSize = 16384;
+    /** Size at which an audit file is closed and a new one started */
+    public static int auditSegmentKB = 4096;
+    /** Audit files kept, the oldest are deleted */
+    public static int auditMaxSegments = 32;
+
+    /** Work out the values of new crafted and smelted foods from their ingredients instead of using vanilla's */
+    public static boolean deriveFromRecipes = false;
+    /** Multiplier on the ingredients' summed values for crafted foods */
+    public static double craftingMultiplier = 1.0;
+    /** Multiplier on the ingredient's values for smelted foods */
+    public static double smeltingMultiplier = 1.25;
+
+    /** Show the hunger, saturation and effects of foods in their tooltips */
+    public static boolean showTooltips = true;
+
+    /** Exhaustion multiplier by dimension id, dimensions not listed use 1 */
+    public static Map<Integer, Float> dimensionExhaustion = Collections.emptyMap();
+    public static float sprintingExhaustion = 1.0f;
+    public static float miningExhaustion = 1.0f;
+    public static float swimmingExhaustion = 1.0f;
+    /** Exhaustion multiplier by potion name, applied while the potion is active */
+    public static Map<String, Float> potionExhaustion = Collections.emptyMap();
+
+    public static void load(File file) {
+        Configuration config = new Configuration(file);
+
+        saveIntervalSeconds = config.getInt(
+            "saveIntervalSeconds",
+            CATEGORY_PERSISTENCE,
+            30,
+            1,
+            3600,
+            "Newly discovered foods are written to the food config files at most once per this many seconds");
+
+        watchConfig = config.getBoolean(
+            "watchConfig",
+            CATEGORY_RELOAD,
+            false,
+            "Watch the config directory and reload changed food entries without /fr reload");
+        watchDebounceMillis = config.getInt(
+            "watchDebounceMillis",
+            CATEGORY_RELOAD,
+            500,
+            50,
+            60000,
+            "How long the config files must stay unchanged before a watched edit is reloaded");
+
+        varietyHistory = config.getInt(
+            "varietyHistory",
+            CATEGORY_VARIETY,
+            8,
+            0,
+            64,
+            "How many recently eaten foods each player remembers, 0 disables diminishing returns");
+        double[] curve = config
+            .get(
+                CATEGORY_VARIETY,
+                "varietyCurve",
+                new double[] { 1.0, 0.8, 0.6, 0.4, 0.25 },
+                "Hunger and saturation multiplier by how many times the food is already among the recent ones."
+                    + " The last value applies to every higher count.")
+            .getDoubleList();
+        varietyCurve = new float[Math.max(curve.length, 1)];
+        for (int i = 0; i < curve.length; i++) varietyCurve[i] = (float) Math.max(curve[i], 0.0);
+        // An empty list scales nothing
+        if (curve.length == 0) varietyCurve[0] = 1.0f;
+
+        String[] assignments = config.getStringList(
+            "dimensionProfiles",
+            CATEGORY_PROFILES,
+            new String[0],
+            "Food profiles by dimension, one dimension=profile per line, e.g. -1=nether for profiles/nether.json."
+                + " A profile only lists the entries that differ from the base config.");
+        dimensionProfiles = parseAssignments(assignments, "dimension profile");
+
+        auditLog = config.getBoolean(
+            "auditLog",
+            CATEGORY_AUDIT,
+            false,
+            "Record who ate what, where, and which effects rolled, to CSV files in the audit directory."
+                + " Export them into one file with /fr export.");
+        auditBufferSize = config.getInt(
+            "auditBufferSize",
+            CATEGORY_AUDIT,
+            16384,
+            1024,
+            1 << 20,
+            "Eat events buffered in memory for the background writer, events beyond this are dropped and counted");
+        auditSegmentKB = config.getInt(
+            "auditSegmentKB",
+            CATEGORY_AUDIT,
+            4096,
+            64,
+            1 << 20,
+            "Size in KB at which an audit file is closed and the next one started");
+        auditMaxSegments = config.getInt(
+            "auditMaxSegments",
+            CATEGORY_AUDIT,
+            32,
+            1,
+            10000,
+            "How many audit files to keep, the oldest are deleted");
+
+        deriveFromRecipes = config.getBoolean(
+            "deriveFromRecipes",
+            CATEGORY_RECIPES,
+            false,
+            "Give foods that have no entry yet the summed values of their crafting or smelting ingredients,"
+                + " split over the output count, instead of the values their mod chose");
+        craftingMultiplier = config
+            .get(
+                CATEGORY_RECIPES,
+                "craftingMultiplier",
+                1.0,
+                "Multiplier on the ingredients' values for crafted foods",
+                0.0,
+                100.0)
+            .getDouble();
+        smeltingMultiplier = config
+            .get(
+                CATEGORY_RECIPES,
+                "smeltingMultiplier",
+                1.25,
+                "Multiplier on the ingredient's values for smelted foods, cooking usually makes food more filling",
+                0.0,
+                100.0)
+            .getDouble();
+
+        showTooltips = config.getBoolean(
+            "showTooltips",
+            CATEGORY_CLIENT,
+            true,
+            "Show the hunger, saturation and effects the server gives each food in its tooltip");
+
+        String[] dimensionLines = config.getStringList(
+            "dimensionExhaustion",
+            CATEGORY_EXHAUSTION,
+            new String[0],
+            "How fast hunger drains by dimension, one dimension=multiplier per line, e.g. -1=1.5");
+        dimensionExhaustion = new HashMap<>();
+        for (Map.Entry<Integer, String> entry : parseAssignments(dimensionLines, "dimension exhaustion").entrySet()) {
+            Float multiplier = parseMultiplier(entry.getValue());
+            if (multiplier != null) {
+                dimensionExhaustion.put(entry.getKey(), multiplier);
+            } else {
+                System.err.println("[FoodRebalanced] Ignoring exhaustion multiplier " + entry.getValue());
+            }
+        }
+        sprintingExhaustion = config.getFloat(
+            "sprintingExhaustion",
+            CATEGORY_EXHAUSTION,
+            1.0f,
+            0.0f,
+            100.0f,
+            "Multiplier on the exhaustion of sprinting players");
+        miningExhaustion = config.getFloat(
+            "miningExhaustion",
+            CATEGORY_EXHAUSTION,
+            1.0f,
+            0.0f,
+            100.0f,
+            "Multiplier on the exhaustion of players breaking a block");
+        swimmingExhaustion = config.getFloat(
+            "swimmingExhaustion",
+            CATEGORY_EXHAUSTION,
+            1.0f,
+            0.0f,
+            100.0f,
+            "Multiplier on the exhaustion of players in water");
+        String[] potionLines = config.getStringList(
+            "potionExhaustion",
+            CATEGORY_EXHAUSTION,
+            new String[0],
+            "Multiplier on exhaustion while a potion is active, one potion=multiplier per line,"
+                + " e.g. minecraft:hunger=1.5. Multipliers of several active potions combine.");
+        potionExhaustion = new HashMap<>();
+        for (String line : potionLines) {
+            int split = line.lastIndexOf('=');
+            Float multiplier = split > 0 ? parseMultiplier(line.substring(split + 1)) : null;
+            if (multiplier == null) {
+                System.err.println(
+                    "[FoodRebalanced] Ignoring potion exhaustion \"" + line + "\", expected potion=multiplier");
+                continue;
+            }
+            potionExhaustion.put(
+                line.substring(0, split)
+                    .trim(),
+                multiplier);
+        }
+
+        if (config.hasChanged()) config.save();
+    }
+
+    /** Lines of the form dimension=value, what names the setting in warnings */
+    private static Map<Integer, String> parseAssignments(String[] lines, String what) {
+        Map<Integer, String> assignments = new HashMap<>();
+        for (String line : lines) {
+            int split = line.indexOf('=');
+            Integer dimension = split > 0 ? parseInt(
+                line.substring(0, split)
+                    .trim())
+                : null;
+            String value = split > 0 ? line.substring(split + 1)
+                .trim() : "";
+            if (dimension == null || value.isEmpty()) {
+                System.err.println(
+                    "[FoodRebalanced] Ignoring " + what + " \"" + line + "\", expected dimension=value");
+                continue;
+            }
+            assignments.put(dimension, value);
+        }
+        return assignments;
+    }
+
+    private static Integer parseInt(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Float parseMultiplier(String value) {
+        try {
+            float multiplier = Float.parseFloat(value.trim());
+            return multiplier >= 0 && !Float.isInfinite(multiplier) ? multiplier : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /** The variety multiplier for a food already eaten this many times recently */
+    public static float varietyScale(int repeats) {
+        return varietyCurve[Math.min(repeats, varietyCurve.length - 1)];
+    }
+}
@@ -0,0 +1,245 @@
+package com.drzenovka.foodrebalanced.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.minecraft.item.ItemFood;
+import net.minecraft.item.ItemStack;
+import net.minecraftforge.oredict.OreDictionary;
+
+import com.drzenovka.foodrebalanced.core.FoodData;
+import com.drzenovka.foodrebalanced.core.FoodExpression;
+import com.drzenovka.foodrebalanced.core.FoodKeys;
+import com.drzenovka.foodrebalanced.core.ValidationReport;
+
+import cpw.mods.fml.common.registry.GameData;
+
+/**
+ * Expands rules ({@code *}, {@code modid:*}, {@code ore:name}) and formulas over vanilla values into concrete
+ * per-item entries at load, so eating stays a single indexed lookup however many rules there are.
+ * Where several rules cover an item the highest priority wins, then the more specific kind (ore name over
+ * namespace over everything), then the later entry. An explicit entry for the item beats rules of up to
+ * its own priority, {@value #EXPLICIT_PRIORITY} unless it sets one.
+ */
+public class FoodRules {
+
+    public static final int EXPLICIT_PRIORITY = 100;
+    public static final int ORE_PRIORITY = 30;
+    public static final int NAMESPACE_PRIORITY = 20;
+    public static final int ALL_PRIORITY = 10;
+
+    private static class Rule {
+
+        final String key;
+        final FoodData data;
+        final int priority;
+        final int specificity;
+        final int order;
+
+        Rule(String key, FoodData data, int order) {
+            this.key = key;
+            this.data = data;
+            this.order = order;
+            if (key.startsWith(FoodKeys.ORE_PREFIX)) {
+                specificity = 3;
+            } else if (key.endsWith(FoodKeys.NAMESPACE_SUFFIX)) {
+                specificity = 2;
+            } else {
+                specificity = 1;
+            }
+            int fallback = specificity == 3 ? ORE_PRIORITY : specificity == 2 ? NAMESPACE_PRIORITY : ALL_PRIORITY;
+            this.priority = data.priority != null ? data.priority : fallback;
+        }
+
+        boolean beats(Rule other) {
+            if (priority != other.priority) return priority > other.priority;
+            if (specificity != other.specificity) return specificity > other.specificity;
+            return order > other.order;
+        }
+    }
+
+    /** A rule's claim on one item and meta */
+    private static class Claim {
+
+        final FoodItemIndex.Entry item;
+        final int meta;
+        Rule rule;
+
+        Claim(FoodItemIndex.Entry item, int meta, Rule rule) {
+            this.item = item;
+            this.meta = meta;
+            this.rule = rule;
+        }
+    }
+
+    /**
+     * The concrete entries for a merged config: explicit entries with formulas resolved, plus rule output.
+     * Formulas that don't give a finite number for an item are reported and leave the item without an entry.
+     */
+    public static Map<String, FoodData> resolve(Map<String, FoodData> merged, ValidationReport report) {
+        Map<String, FoodData> concrete = new LinkedHashMap<>();
+        List<Rule> rules = new ArrayList<>();
+        for (Map.Entry<String, FoodData> entry : merged.entrySet()) {
+            String key = entry.getKey();
+            FoodData data = entry.getValue();
+            if (FoodKeys.isRule(key)) {
+                rules.add(new Rule(key, data, rules.size()));
+            } else if (data.hungerExpression != null || data.saturationExpression != null) {
+                String name = FoodKeys.itemName(key);
+                FoodItemIndex.Entry item = name != null ? FoodItemIndex.get(name) : null;
+                FoodData resolved = item != null ? apply(data, item, metaOf(key), key, report) : null;
+                if (resolved != null) {
+                    concrete.put(key, resolved);
+                } else if (item == null) {
+                    System.err.println("[FoodRebalanced] No vanilla values to resolve the formulas of " + key);
+                }
+            } else {
+                concrete.put(key, data);
+            }
+        }
+        if (rules.isEmpty()) return concrete;
+
+        Map<String, Claim> claims = new LinkedHashMap<>();
+        Map<String, List<FoodItemIndex.Entry>> byNamespace = null;
+        for (Rule rule : rules) {
+            if (rule.key.equals(FoodKeys.ALL_FOODS)) {
+                for (FoodItemIndex.Entry item : FoodItemIndex.all()) claimAll(claims, rule, item);
+            } else if (rule.key.startsWith(FoodKeys.ORE_PREFIX)) {
+                String ore = rule.key.substring(FoodKeys.ORE_PREFIX.length());
+                for (ItemStack stack : OreDictionary.getOres(ore)) claimOre(claims, rule, stack);
+            } else {
+                if (byNamespace == null) byNamespace = byNamespace();
+                List<FoodItemIndex.Entry> items = byNamespace.get(FoodKeys.namespace(rule.key));
+                if (items != null) for (FoodItemIndex.Entry item : items) claimAll(claims, rule, item);
+            }
+        }
+
+        // Explicit entries hold their ground against rules of lower or equal priority
+        for (Map.Entry<String, Claim> entry : claims.entrySet()) {
+            Claim claim = entry.getValue();
+            if (holds(merged.get(entry.getKey()), claim.rule)) continue;
+            if (holds(merged.get(FoodKeys.getKey(claim.item.name, FoodKeys.ANY_META)), claim.rule)) continue;
+
+            FoodData resolved = apply(claim.rule.data, claim.item, claim.meta, claim.rule.key, report);
+            if (resolved != null) concrete.put(entry.getKey(), resolved);
+        }
+        return concrete;
+    }
+
+    /** Every known meta of the item, plus a wildcard for subtypes the index couldn't list */
+    private static void claimAll(Map<String, Claim> claims, Rule rule, FoodItemIndex.Entry item) {
+        for (int meta : item.metas) claim(claims, rule, item, meta);
+        if (item.item.getHasSubtypes()) claim(claims, rule, item, FoodKeys.ANY_META);
+    }
+
+    private static void claimOre(Map<String, Claim> claims, Rule rule, ItemStack stack) {
+        if (stack == null || !(stack.getItem() instanceof ItemFood)) return;
+
+        String name = GameData.getItemRegistry()
+            .getNameForObject(stack.getItem());
+        FoodItemIndex.Entry item = name != null ? FoodItemIndex.get(name) : null;
+        if (item == null) return;
+
+        if (stack.getItemDamage() == OreDictionary.WILDCARD_VALUE) {
+            claimAll(claims, rule, item);
+        } else {
+            claim(claims, rule, item, stack.getItemDamage());
+        }
+    }
+
+    private static void claim(Map<String, Claim> claims, Rule rule, FoodItemIndex.Entry item, int meta) {
+        String key = FoodKeys.getKey(item.name, meta);
+        Claim claim = claims.get(key);
+        if (claim == null) {
+            claims.put(key, new Claim(item, meta, rule));
+        } else if (rule.beats(claim.rule)) {
+            claim.rule = rule;
+        }
+    }
+
+    private static boolean holds(FoodData explicit, Rule rule) {
+        if (explicit == null) return false;
+        return (explicit.priority != null ? explicit.priority : EXPLICIT_PRIORITY) >= rule.priority;
+    }
+
+    private static Map<String, List<FoodItemIndex.Entry>> byNamespace() {
+        Map<String, List<FoodItemIndex.Entry>> map = new HashMap<>();
+        for (FoodItemIndex.Entry item : FoodItemIndex.all()) {
+            map.computeIfAbsent(FoodKeys.namespace(FoodKeys.getKey(item.name, 0)), k -> new ArrayList<>())
+                .add(item);
+        }
+        return map;
+    }
+
+    /**
+     * A concrete entry for one item from a rule or formula entry, missing values taken from vanilla. Formulas
+     * fold to constants here unless they depend on the eating player, then they are kept compiled and the
+     * constants hold their value for empty food bars. Null if a formula fails for the item, which is then
+     * reported and rejected under the item's key, naming the rule if it came from one.
+     */
+    private static FoodData apply(FoodData source, FoodItemIndex.Entry item, int meta, String from,
+        ValidationReport report) {
+        try {
+            return apply(source, item, meta);
+        } catch (IllegalArgumentException e) {
+            String key = FoodKeys.getKey(item.name, meta);
+            report.error(key, (from.equals(key) ? "" : "rule " + from + ", ") + e.getMessage());
+            return null;
+        }
+    }
+
+    private static FoodData apply(FoodData source, FoodItemIndex.Entry item, int meta) {
+        int slot = Math.max(item.indexOf(meta), 0);
+        FoodData data = new FoodData();
+        data.name = source.name;
+        data.priority = source.priority;
+        data.nbt = source.nbt;
+        data.nbtPattern = source.nbtPattern;
+
+        FoodExpression.Item known = new FoodExpression.Item(
+            item.hunger[slot],
+            item.saturation[slot],
+            meta,
+            FoodKeys.namespace(FoodKeys.getKey(item.name, 0)));
+        FoodExpression.Value hunger = value(source.hunger, source.hungerExpression, item.hunger[slot], known, null);
+        data.hunger = (int) Math.max(Math.round(hunger.nominal()), 0);
+        data.hungerFormula = hunger.formula();
+
+        // Saturation formulas see the hunger as eaten, rounded, unless it depends on the player
+        FoodExpression.Value eaten = hunger.isConstant() ? FoodExpression.Value.of(data.hunger) : hunger;
+        FoodExpression.Value saturation = value(
+            source.saturation,
+            source.saturationExpression,
+            item.saturation[slot],
+            known,
+            eaten);
+        data.saturation = (float) Math.max(saturation.nominal(), 0);
+        data.saturationFormula = saturation.formula();
+
+        if (source.effects != null) {
+            data.effects = source.effects;
+            data.compiledEffects = source.compiledEffects;
+        } else {
+            data.compiledEffects = item.vanillaEffects();
+        }
+        return data;
+    }
+
+    private static int metaOf(String key) {
+        try {
+            return FoodKeys.meta(key);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static FoodExpression.Value value(Number constant, FoodExpression expression, double vanilla,
+        FoodExpression.Item known, FoodExpression.Value hunger) {
+        if (constant != null) return FoodExpression.Value.of(constant.doubleValue());
+        if (expression != null) return expression.fold(vanilla, known, hunger);
+        return FoodExpression.Value.of(vanilla);
+    }
+}
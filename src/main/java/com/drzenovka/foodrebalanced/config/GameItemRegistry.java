@@ -0,0 +1,20 @@
+package com.drzenovka.foodrebalanced.config;
+
+import net.minecraft.item.Item;
+
+import com.drzenovka.foodrebalanced.core.ItemRegistry;
+
+import cpw.mods.fml.common.registry.GameData;
+
+/** {@link ItemRegistry} backed by the game's item registry */
+public class GameItemRegistry implements ItemRegistry {
+
+    public static final GameItemRegistry INSTANCE = new GameItemRegistry();
+
+    @Override
+    public int getItemId(String name) {
+        Item item = GameData.getItemRegistry()
+            .getObject(name);
+        return item != null ? Item.getIdFromItem(item) : -1;
+    }
+}
@@ -0,0 +1,41 @@
+package com.drzenovka.foodrebalanced.config;
+
+import net.minecraft.item.ItemFood;
+
+import com.drzenovka.foodrebalanced.core.FoodEntry;
+
+/**
+ * The one place that reads and writes ItemFood's food and potion fields. The access transformer
+ * (foodrebalanced_at.cfg) makes them public and non-final, so these are plain field accesses with
+ * no reflection lookups, whether applying the whole table or a single item. Potion effects belong to
+ * {@link com.drzenovka.foodrebalanced.handler.FoodEffectHandler}, which rolls every effect of the entry
+ * itself, so the potion fields are always left empty and vanilla never applies a second copy.
+ */
+public class ItemFoodAccess {
+
+    public static void setFood(ItemFood food, int hunger, float saturation) {
+        food.healAmount = hunger;
+        food.saturationModifier = saturation;
+    }
+
+    /** Stops vanilla from applying any potion on eating */
+    public static void clearPotion(ItemFood food) {
+        food.potionId = 0;
+        food.potionDuration = 0;
+        food.potionAmplifier = 0;
+        food.potionEffectProbability = 0f;
+    }
+
+    /** Put back the food values the item had before any override, its vanilla potion stays with the handler */
+    public static void restore(FoodItemIndex.Entry item) {
+        int slot = Math.max(item.indexOf(0), 0);
+        setFood(item.item, item.hunger[slot], item.saturation[slot]);
+        clearPotion(item.item);
+    }
+
+    /** Apply a table entry's food values, its effects are applied by the handler */
+    public static void apply(ItemFood food, FoodEntry data) {
+        setFood(food, data.hunger, data.saturation);
+        clearPotion(food);
+    }
+}
@@ -0,0 +1,108 @@
+package com.drzenovka.foodrebalanced.config;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import net.minecraft.nbt.NBTBase;
+import net.minecraft.nbt.NBTTagByteArray;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagDouble;
+import net.minecraft.nbt.NBTTagFloat;
+import net.minecraft.nbt.NBTTagIntArray;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraft.nbt.NBTTagString;
+
+import com.drzenovka.foodrebalanced.core.NbtFingerprinter;
+import com.drzenovka.foodrebalanced.core.NbtPattern;
+import com.google.common.collect.MapMaker;
+
+/**
+ * Fingerprints stack NBT for variant matching. Results are cached per tag compound instance, weakly and by
+ * identity, so eating from the same stack again doesn't walk its NBT. A tag edited in place after it was
+ * fingerprinted keeps its old fingerprint until the stack gets a new compound, which food items never do.
+ */
+public class NbtFingerprints implements NbtFingerprinter<NBTTagCompound> {
+
+    public static final NbtFingerprints INSTANCE = new NbtFingerprints();
+
+    private final Map<NBTTagCompound, Prints> cache = new MapMaker().weakKeys()
+        .makeMap();
+
+    /** Fingerprints of one tag, per keys array (shared between variants looking at the same keys) */
+    private static final class Prints {
+
+        final String[][] keys;
+        final long[] values;
+
+        Prints(String[][] keys, long[] values) {
+            this.keys = keys;
+            this.values = values;
+        }
+    }
+
+    @Override
+    public long fingerprint(NBTTagCompound tag, String[] keys) {
+        Prints prints = cache.get(tag);
+        if (prints != null) {
+            for (int i = 0; i < prints.keys.length; i++) {
+                if (prints.keys[i] == keys) return prints.values[i];
+            }
+        }
+
+        long h = NbtPattern.OFFSET;
+        for (String key : keys) {
+            h = NbtPattern.mix(h, key);
+            h = mix(h, tag.hasKey(key) ? tag.getTag(key) : null);
+        }
+
+        // Copy on write, racing writers only cost a recomputation
+        int n = prints != null ? prints.keys.length : 0;
+        String[][] newKeys = prints != null ? Arrays.copyOf(prints.keys, n + 1) : new String[1][];
+        long[] newValues = prints != null ? Arrays.copyOf(prints.values, n + 1) : new long[1];
+        newKeys[n] = keys;
+        newValues[n] = h;
+        cache.put(tag, new Prints(newKeys, newValues));
+        return h;
+    }
+
+    private static long mix(long h, NBTBase tag) {
+        if (tag == null) return NbtPattern.mix(h, NbtPattern.MISSING);
+
+        if (tag instanceof NBTTagCompound compound) {
+            @SuppressWarnings("unchecked")
+            String[] keys = (String[]) compound.func_150296_c()
+                .toArray(new String[0]);
+            Arrays.sort(keys);
+
+            h = NbtPattern.mix(NbtPattern.mix(h, NbtPattern.COMPOUND), (long) keys.length);
+            for (String key : keys) h = mix(NbtPattern.mix(h, key), compound.getTag(key));
+            return h;
+        }
+        if (tag instanceof NBTTagList list) {
+            // Elements are only reachable by removing them, so walk a copy
+            NBTTagList copy = (NBTTagList) list.copy();
+            h = NbtPattern.mix(NbtPattern.mix(h, NbtPattern.LIST), (long) copy.tagCount());
+            while (copy.tagCount() > 0) h = mix(h, copy.removeTag(0));
+            return h;
+        }
+        if (tag instanceof NBTTagByteArray bytes) {
+            byte[] values = bytes.func_150292_c();
+            h = NbtPattern.mix(NbtPattern.mix(h, NbtPattern.LIST), (long) values.length);
+            for (byte value : values) h = NbtPattern.mixInteger(h, value);
+            return h;
+        }
+        if (tag instanceof NBTTagIntArray ints) {
+            int[] values = ints.func_150302_c();
+            h = NbtPattern.mix(NbtPattern.mix(h, NbtPattern.LIST), (long) values.length);
+            for (int value : values) h = NbtPattern.mixInteger(h, value);
+            return h;
+        }
+        if (tag instanceof NBTTagString string) return NbtPattern.mixString(h, string.func_150285_a_());
+        if (tag instanceof NBTTagFloat || tag instanceof NBTTagDouble) {
+            return NbtPattern.mixFloat(h, ((NBTBase.NBTPrimitive) tag).func_150286_g());
+        }
+        if (tag instanceof NBTBase.NBTPrimitive number) return NbtPattern.mixInteger(h, number.func_150291_c());
+
+        return NbtPattern.mixString(h, tag.toString());
+    }
+}
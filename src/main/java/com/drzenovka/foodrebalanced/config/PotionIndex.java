@@ -0,0 +1,105 @@
+package com.drzenovka.foodrebalanced.config;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import net.minecraft.potion.Potion;
+
+/**
+ * Single name to potion id index shared by config loading and override application.
+ * Covers registered potion names (vanilla and modded), the static field names on {@link Potion}
+ * and the friendly aliases used in the food config files. Built in postInit and published through a volatile
+ * field, so the shard loader and recipe worker threads see the finished map.
+ */
+public class PotionIndex {
+
+    private static volatile Map<String, Integer> byName;
+
+    /** (Re)build the index, call once all mods have registered their potions */
+    public static synchronized void build() {
+        Map<String, Integer> map = new HashMap<>();
+
+        // Registered names first, covers modded potions
+        for (Potion potion : Potion.potionTypes) {
+            if (potion != null && potion.getName() != null) map.put(normalize(potion.getName()), potion.id);
+        }
+
+        // Static fields such as moveSpeed or field_76444_x
+        for (Field field : Potion.class.getFields()) {
+            if (!Modifier.isStatic(field.getModifiers()) || field.getType() != Potion.class) continue;
+            try {
+                Potion potion = (Potion) field.get(null);
+                if (potion != null) map.putIfAbsent(normalize(field.getName()), potion.id);
+            } catch (IllegalAccessException ignored) {}
+        }
+
+        alias(map, Potion.regeneration, "regeneration");
+        alias(map, Potion.field_76444_x, "absorption");
+        alias(map, Potion.field_76434_w, "health_boost");
+        alias(map, Potion.field_76443_y, "saturation");
+        alias(map, Potion.hunger, "hunger");
+        alias(map, Potion.damageBoost, "strength", "damage_boost");
+        alias(map, Potion.heal, "heal", "instant_health");
+        alias(map, Potion.harm, "harm", "instant_damage");
+        alias(map, Potion.fireResistance, "fire_resistance");
+        alias(map, Potion.resistance, "resistance");
+        alias(map, Potion.moveSpeed, "speed");
+        alias(map, Potion.moveSlowdown, "slowness");
+        alias(map, Potion.digSpeed, "haste");
+        alias(map, Potion.digSlowdown, "mining_fatigue");
+        alias(map, Potion.confusion, "nausea");
+        alias(map, Potion.poison, "poison");
+        alias(map, Potion.wither, "wither");
+        alias(map, Potion.nightVision, "night_vision");
+        alias(map, Potion.invisibility, "invisibility");
+        alias(map, Potion.blindness, "blindness");
+        alias(map, Potion.weakness, "weakness");
+        alias(map, Potion.waterBreathing, "water_breathing");
+        alias(map, Potion.jump, "jump_boost");
+
+        byName = map;
+    }
+
+    /** Resolve a config potion name to its id, or -1 if unknown */
+    public static int resolve(String name) {
+        if (name == null) return -1;
+        Map<String, Integer> index = byName;
+        if (index == null) index = built();
+
+        String key = normalize(name);
+        Integer id = index.get(key);
+        if (id != null) return id;
+
+        // Plain numeric ids are accepted as well
+        try {
+            int numeric = Integer.parseInt(key);
+            if (numeric >= 0 && numeric < Potion.potionTypes.length && Potion.potionTypes[numeric] != null)
+                return numeric;
+        } catch (NumberFormatException ignored) {}
+
+        return -1;
+    }
+
+    /** The index, built here if resolve runs before postInit */
+    private static synchronized Map<String, Integer> built() {
+        if (byName == null) build();
+        return byName;
+    }
+
+    /** Lowercase, strip "minecraft:" and "potion." prefixes and drop underscores */
+    static String normalize(String name) {
+        String key = name.trim()
+            .toLowerCase(Locale.ROOT);
+        if (key.startsWith("minecraft:")) key = key.substring(10);
+        if (key.startsWith("potion.")) key = key.substring(7);
+        return key.replace("_", "");
+    }
+
+    private static void alias(Map<String, Integer> map, Potion potion, String... names) {
+        if (potion == null) return;
+        for (String name : names) map.put(normalize(name), potion.id);
+    }
+}
@@ -0,0 +1,136 @@
+package com.drzenovka.foodrebalanced.config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.crafting.CraftingManager;
+import net.minecraft.item.crafting.FurnaceRecipes;
+import net.minecraft.item.crafting.IRecipe;
+import net.minecraft.item.crafting.ShapedRecipes;
+import net.minecraft.item.crafting.ShapelessRecipes;
+import net.minecraftforge.oredict.OreDictionary;
+import net.minecraftforge.oredict.ShapedOreRecipe;
+import net.minecraftforge.oredict.ShapelessOreRecipe;
+
+import com.drzenovka.foodrebalanced.core.FoodKeys;
+import com.drzenovka.foodrebalanced.core.RecipeDerivation;
+
+import cpw.mods.fml.common.registry.GameData;
+
+/**
+ * Reads the crafting and furnace recipes into {@link RecipeDerivation.Recipe}s keyed by item. The recipe list
+ * is split into chunks converted on the given pool; this only reads recipes and the item registry, which no
+ * longer change once the server runs. Recipe types other than the vanilla and ore dictionary ones are skipped.
+ */
+public class RecipeGraph {
+
+    private static final int CHUNK = 2048;
+
+    public static List<RecipeDerivation.Recipe> extract(ExecutorService pool)
+        throws InterruptedException, ExecutionException {
+        Object[] crafting = CraftingManager.getInstance()
+            .getRecipeList()
+            .toArray();
+
+        List<Future<List<RecipeDerivation.Recipe>>> parts = new ArrayList<>();
+        for (int from = 0; from < crafting.length; from += CHUNK) {
+            Object[] chunk = Arrays.copyOfRange(crafting, from, Math.min(from + CHUNK, crafting.length));
+            parts.add(pool.submit(() -> convert(chunk)));
+        }
+
+        List<RecipeDerivation.Recipe> recipes = new ArrayList<>(crafting.length);
+        for (Future<List<RecipeDerivation.Recipe>> part : parts) recipes.addAll(part.get());
+
+        double smelting = FoodRebalancedConfig.smeltingMultiplier;
+        for (Object obj : FurnaceRecipes.smelting()
+            .getSmeltingList()
+            .entrySet()) {
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) obj;
+            if (!(entry.getKey() instanceof ItemStack input) || !(entry.getValue() instanceof ItemStack output)) {
+                continue;
+            }
+            String key = keyOf(output);
+            String[] slot = slot(input);
+            if (key != null && slot != null) {
+                recipes.add(new RecipeDerivation.Recipe(key, output.stackSize, new String[][] { slot }, smelting));
+            }
+        }
+        return recipes;
+    }
+
+    private static List<RecipeDerivation.Recipe> convert(Object[] chunk) {
+        List<RecipeDerivation.Recipe> recipes = new ArrayList<>(chunk.length);
+        double multiplier = FoodRebalancedConfig.craftingMultiplier;
+        for (Object obj : chunk) {
+            if (!(obj instanceof IRecipe recipe)) continue;
+            ItemStack output = recipe.getRecipeOutput();
+            String key = keyOf(output);
+            if (key == null) continue;
+
+            List<?> inputs;
+            if (recipe instanceof ShapedRecipes shaped) {
+                inputs = Arrays.asList(shaped.recipeItems);
+            } else if (recipe instanceof ShapelessRecipes shapeless) {
+                inputs = shapeless.recipeItems;
+            } else if (recipe instanceof ShapedOreRecipe shaped) {
+                inputs = Arrays.asList(shaped.getInput());
+            } else if (recipe instanceof ShapelessOreRecipe shapeless) {
+                inputs = shapeless.getInput();
+            } else {
+                continue;
+            }
+
+            List<String[]> slots = new ArrayList<>(inputs.size());
+            boolean readable = true;
+            for (Object input : inputs) {
+                if (input == null) continue;
+                String[] slot = slot(input);
+                if (slot == null) {
+                    readable = false;
+                    break;
+                }
+                slots.add(slot);
+            }
+            if (readable && !slots.isEmpty()) {
+                recipes.add(
+                    new RecipeDerivation.Recipe(
+                        key,
+                        output.stackSize,
+                        slots.toArray(new String[0][]),
+                        multiplier));
+            }
+        }
+        return recipes;
+    }
+
+    /** The item keys that fit a recipe slot, an ItemStack or an ore dictionary list of them. Null if unknown */
+    private static String[] slot(Object input) {
+        if (input instanceof ItemStack stack) {
+            String key = keyOf(stack);
+            return key != null ? new String[] { key } : null;
+        }
+        if (!(input instanceof List<?> list)) return null;
+
+        List<String> keys = new ArrayList<>(list.size());
+        for (Object option : list) {
+            String key = option instanceof ItemStack stack ? keyOf(stack) : null;
+            if (key != null) keys.add(key);
+        }
+        // An ore name nothing is registered under can't be crafted with at all
+        return keys.isEmpty() ? null : keys.toArray(new String[0]);
+    }
+
+    private static String keyOf(ItemStack stack) {
+        if (stack == null || stack.getItem() == null) return null;
+        String name = GameData.getItemRegistry()
+            .getNameForObject(stack.getItem());
+        int meta = stack.getItemDamage() == OreDictionary.WILDCARD_VALUE ? FoodKeys.ANY_META : stack.getItemDamage();
+        return FoodKeys.getKey(name, meta);
+    }
+}
@@ -3,15 +3,22 @@ package com.drzenovka.foodrebalanced.handler;
 import java.util.Random;
 
 import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemFood;
 import net.minecraft.item.ItemStack;
-import net.minecraft.potion.Potion;
 import net.minecraft.potion.PotionEffect;
+import net.minecraft.util.FoodStats;
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.event.entity.player.PlayerUseItemEvent;
 
+import com.drzenovka.foodrebalanced.audit.EatAuditLog;
 import com.drzenovka.foodrebalanced.config.FoodConfigManager;
-import com.drzenovka.foodrebalanced.config.FoodConfigManager.FoodData;
+import com.drzenovka.foodrebalanced.config.FoodRebalancedConfig;
+import com.drzenovka.foodrebalanced.core.CompiledEffect;
+import com.drzenovka.foodrebalanced.core.FoodEntry;
+import com.drzenovka.foodrebalanced.core.FoodMetrics;
+import com.drzenovka.foodrebalanced.player.FoodEffectScheduler;
+import com.drzenovka.foodrebalanced.player.FoodPlayerData;
 
 import cpw.mods.fml.common.eventhandler.EventPriority;
 import cpw.mods.fml.common.eventhandler.SubscribeEvent;
@@ -24,136 +31,107 @@ public class FoodEffectHandler {
         MinecraftForge.EVENT_BUS.register(new FoodEffectHandler());
     }
 
+    @SubscribeEvent
+    public void onStartEating(PlayerUseItemEvent.Start event) {
+        holdBars(event.entityPlayer, event.item);
+    }
+
+    @SubscribeEvent
+    public void onEating(PlayerUseItemEvent.Tick event) {
+        holdBars(event.entityPlayer, event.item);
+    }
+
+    /** Formulas see the bars from before vanilla added the item, which can't be undone once it capped them */
+    private static void holdBars(EntityPlayer player, ItemStack stack) {
+        if (player.worldObj.isRemote || stack == null || !(stack.getItem() instanceof ItemFood)) return;
+        FoodPlayerData data = FoodPlayerData.get(player);
+        if (data != null) data.holdBars(player.getFoodStats());
+    }
+
     @SubscribeEvent(priority = EventPriority.HIGHEST)
     public void onPlayerUse(PlayerUseItemEvent.Finish event) {
         ItemStack stack = event.item;
         if (stack == null || !(stack.getItem() instanceof ItemFood)) return;
 
-        if (stack.getItem() instanceof ItemFood food) {
-            // zero out vanilla potion effects
-            food.potionId = 0;
-            food.potionDuration = 0;
-            food.potionAmplifier = 0;
-            food.potionEffectProbability = 0f;
-        }
+        // The client's ItemFood fields hold the synced values, so vanilla already predicts the food bars there.
+        // Formulas, variety and effects are the server's, it sends the results, and an integrated client shares
+        // the metrics, so nothing happens on the client
+        if (event.entityPlayer.worldObj.isRemote) return;
+
+        long started = System.nanoTime();
+        FoodMetrics.EAT_EVENTS.increment();
+        applyFood(event, stack);
+        FoodMetrics.EAT.record(System.nanoTime() - started);
+    }
 
-        FoodData data = FoodConfigManager.getFoodData(stack);
+    private void applyFood(PlayerUseItemEvent.Finish event, ItemStack stack) {
+        EntityPlayer player = event.entityPlayer;
+        FoodEntry data = FoodConfigManager.getFoodData(stack, player.worldObj.provider.dimensionId);
         if (data == null) {
-            FoodConfigManager.registerEatenItem(stack);
-            data = FoodConfigManager.getFoodData(stack);
+            FoodMetrics.MISSES.increment();
+            data = FoodConfigManager.registerEatenItem(stack);
             if (data == null) return;
         }
 
         // System.out.println("eating: " + data.name);
 
-        EntityPlayer player = event.entityPlayer;
         ItemFood item = (ItemFood) stack.getItem();
 
-        // Override hunger and saturation from JSON if provided
-        int jsonHunger = data.hunger != null ? data.hunger : item.func_150905_g(stack);
-        float jsonSaturation = data.saturation != null ? data.saturation : item.func_150906_h(stack);
-
         // Get vanilla values
         int vanillaHunger = item.func_150905_g(stack);
         float vanillaSaturation = item.func_150906_h(stack);
 
-        if (!player.worldObj.isRemote) {
-            if (player.getFoodStats()
-                .getFoodLevel() <= 20) {
-                // Remove the vanilla contribution first
-                player.getFoodStats()
-                    .addStats(-vanillaHunger, -vanillaSaturation);
-                // Apply the JSON override
-                player.getFoodStats()
-                    .addStats(jsonHunger, jsonSaturation);
-            }
-
+        // Formulas of the player's food bars see the bars as they were on the last tick of eating. Without
+        // those, the bars are worked back from vanilla's values, which is low when vanilla hit a full bar
+        FoodPlayerData history = FoodPlayerData.get(player);
+        FoodStats stats = player.getFoodStats();
+        int foodLevel;
+        float saturationLevel;
+        if (history != null && history.heldFoodLevel() >= 0) {
+            foodLevel = history.heldFoodLevel();
+            saturationLevel = history.heldSaturationLevel();
+            history.releaseBars();
+        } else {
+            foodLevel = Math.max(stats.getFoodLevel() - vanillaHunger, 0);
+            saturationLevel = Math.max(stats.foodSaturationLevel - vanillaHunger * vanillaSaturation * 2f, 0f);
         }
-
-        // Handle potion effects
-        if (data.effects != null) {
-            for (FoodData.EffectData ed : data.effects) {
-                if (ed == null || ed.id == null) continue;
-
-                float chance = (ed.chance == null || ed.chance <= 0f) ? 1f : ed.chance;
-                if (RNG.nextFloat() > chance) continue;
-                // boolean applyEffect = RNG.nextFloat() <= chance;
-
-                // Debug log: show what would happen
-                // System.out.println("[FoodEffectHandler] Trying to apply potion effect from food: "
-                // + ed.id + ", duration=" + ed.duration + ", amplifier=" + ed.amplifier
-                // + ", chance=" + chance + ", roll=" + applyEffect);
-
-                // if (!applyEffect) continue;
-
-                Potion potion = getPotionByName(ed.id);
-                if (potion != null && ed.duration != null && ed.duration > 0) {
-                    int amp = (ed.amplifier != null) ? ed.amplifier : 0;
-                    int durationTicks = ed.duration * 20; // ticks to seconds for easier config
-                    player.addPotionEffect(new PotionEffect(potion.id, durationTicks, amp));
-                }
-            }
+        int jsonHunger = data.hunger(foodLevel, saturationLevel);
+        float jsonSaturation = data.saturation(foodLevel, saturationLevel);
+
+        // Diminishing returns for foods eaten repeatedly
+        if (history != null && FoodRebalancedConfig.varietyHistory > 0) {
+            int foodId = FoodPlayerData.foodId(Item.getIdFromItem(item), stack.getItemDamage());
+            float scale = FoodRebalancedConfig.varietyScale(history.count(foodId));
+            jsonHunger = Math.round(jsonHunger * scale);
+            jsonSaturation *= scale;
+            history.eat(foodId);
         }
-    }
 
-    private Potion getPotionByName(String name) {
-        if (name == null) return null;
-
-        // normalize the string
-        name = name.toLowerCase()
-            .trim();
-
-        // strip prefixes added by JSON from other mods
-        if (name.startsWith("minecraft:")) name = name.substring(10);
-        if (name.startsWith("potion.")) name = name.substring(7);
-
-        switch (name) {
-            case "regeneration":
-                return Potion.regeneration;
-            case "absorption":
-                return Potion.field_76444_x;
-            case "hunger":
-                return Potion.hunger;
-            case "strength":
-            case "damage_boost":
-                return Potion.damageBoost;
-            case "heal":
-            case "instant_health":
-                return Potion.heal;
-            case "instant_damage":
-                return Potion.harm;
-            case "fire_resistance":
-                return Potion.fireResistance;
-            case "resistance":
-                return Potion.resistance;
-            case "speed":
-                return Potion.moveSpeed;
-            case "slowness":
-                return Potion.moveSlowdown;
-            case "poison":
-                return Potion.poison;
-            case "wither":
-                return Potion.wither;
-            case "night_vision":
-                return Potion.nightVision;
-            case "invisibility":
-                return Potion.invisibility;
-            case "water_breathing":
-                return Potion.waterBreathing;
-            case "jump_boost":
-                return Potion.jump;
+        if (player.getFoodStats()
+            .getFoodLevel() <= 20) {
+            // Remove the vanilla contribution first
+            player.getFoodStats()
+                .addStats(-vanillaHunger, -vanillaSaturation);
+            // Apply the JSON override
+            player.getFoodStats()
+                .addStats(jsonHunger, jsonSaturation);
         }
 
-        // fallback: try reflection on Potion class fields
-        try {
-            java.lang.reflect.Field f = Potion.class.getField(name);
-            Object o = f.get(null);
-            if (o instanceof Potion) return (Potion) o;
-        } catch (Exception ignored) {}
+        // Handle potion effects, resolved when the config was loaded
+        long rolled = 0;
+        for (int i = 0; i < data.effects.length; i++) {
+            CompiledEffect effect = data.effects[i];
+            if (!effect.rolls(RNG)) continue;
+            if (i < 64) rolled |= 1L << i;
+            if (effect.isImmediate()) {
+                player.addPotionEffect(new PotionEffect(effect.potionId, effect.durationTicks, effect.amplifier));
+                FoodMetrics.EFFECTS_APPLIED.increment();
+            } else {
+                // Delayed and repeating effects run on the server's timing wheel
+                FoodEffectScheduler.schedule(player, effect);
+            }
+        }
 
-        // still nothing found
-        System.out.println("[FoodEffectHandler] Unknown potion ID: " + name);
-        return null;
+        EatAuditLog.record(player, stack, data, jsonHunger, jsonSaturation, rolled);
     }
-
 }
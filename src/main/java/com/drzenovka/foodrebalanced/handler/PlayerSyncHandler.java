@@ -0,0 +1,24 @@
+package com.drzenovka.foodrebalanced.handler;
+
+import net.minecraft.entity.player.EntityPlayerMP;
+
+import com.drzenovka.foodrebalanced.config.FoodConfigManager;
+import com.drzenovka.foodrebalanced.network.FoodSync;
+
+import cpw.mods.fml.common.FMLCommonHandler;
+import cpw.mods.fml.common.eventhandler.SubscribeEvent;
+import cpw.mods.fml.common.gameevent.PlayerEvent;
+
+public class PlayerSyncHandler {
+
+    public static void register() {
+        FMLCommonHandler.instance()
+            .bus()
+            .register(new PlayerSyncHandler());
+    }
+
+    @SubscribeEvent
+    public void onPlayerLoggedIn(PlayerEvent.PlayerLoggedInEvent event) {
+        if (event.player instanceof EntityPlayerMP player) FoodSync.sendTable(player, FoodConfigManager.getTable());
+    }
+}
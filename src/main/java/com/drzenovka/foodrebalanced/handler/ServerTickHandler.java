@@ -0,0 +1,31 @@
+package com.drzenovka.foodrebalanced.handler;
+
+import com.drzenovka.foodrebalanced.config.FoodConfigManager;
+import com.drzenovka.foodrebalanced.player.ExhaustionScaler;
+import com.drzenovka.foodrebalanced.player.FoodEffectScheduler;
+
+import cpw.mods.fml.common.FMLCommonHandler;
+import cpw.mods.fml.common.eventhandler.SubscribeEvent;
+import cpw.mods.fml.common.gameevent.TickEvent;
+
+public class ServerTickHandler {
+
+    public static void register() {
+        FMLCommonHandler.instance()
+            .bus()
+            .register(new ServerTickHandler());
+    }
+
+    @SubscribeEvent
+    public void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase == TickEvent.Phase.END) {
+            // Players have moved and eaten by now, scale what they used up this tick
+            ExhaustionScaler.tick();
+            return;
+        }
+
+        // Swap in tables loaded off-thread
+        FoodConfigManager.runServerTasks();
+        FoodEffectScheduler.tick();
+    }
+}
@@ -0,0 +1,77 @@
+package com.drzenovka.foodrebalanced.network;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import net.minecraft.entity.player.EntityPlayerMP;
+
+import com.drzenovka.foodrebalanced.FoodRebalanced;
+import com.drzenovka.foodrebalanced.config.GameItemRegistry;
+import com.drzenovka.foodrebalanced.core.FoodKeys;
+import com.drzenovka.foodrebalanced.core.FoodTable;
+
+import cpw.mods.fml.common.FMLCommonHandler;
+import cpw.mods.fml.common.network.NetworkRegistry;
+import cpw.mods.fml.common.network.simpleimpl.SimpleNetworkWrapper;
+import cpw.mods.fml.relauncher.Side;
+
+/** Keeps clients' food values in line with the server: the whole table on login, only changes after that */
+public class FoodSync {
+
+    /** Keeps each packet well below the vanilla custom payload limit, even for entries with several effects */
+    private static final int ENTRIES_PER_PACKET = 512;
+
+    private static SimpleNetworkWrapper channel;
+
+    public static void register() {
+        channel = NetworkRegistry.INSTANCE.newSimpleChannel(FoodRebalanced.MODID);
+        channel.registerMessage(FoodSyncMessage.Handler.class, FoodSyncMessage.class, 0, Side.CLIENT);
+    }
+
+    /** Send the whole table to a player who just joined */
+    public static void sendTable(EntityPlayerMP player, FoodTable table) {
+        List<FoodSyncMessage> parts = split(table, table.keys(), true);
+        for (FoodSyncMessage part : parts) channel.sendTo(part, player);
+    }
+
+    /** Send the given added, changed or removed keys to everyone online, a no-op off the server thread */
+    public static void sendChanged(FoodTable table, Collection<String> keys) {
+        if (keys.isEmpty() || !FMLCommonHandler.instance()
+            .getEffectiveSide()
+            .isServer()) return;
+        for (FoodSyncMessage part : split(table, keys, false)) channel.sendToAll(part);
+    }
+
+    private static List<FoodSyncMessage> split(FoodTable table, Collection<String> keys, boolean full) {
+        List<FoodSyncMessage> parts = new ArrayList<>();
+        int flags = full ? FoodSyncMessage.PART : 0;
+        FoodSyncMessage part = new FoodSyncMessage(full ? flags | FoodSyncMessage.FULL : flags);
+        parts.add(part);
+
+        for (String key : keys) {
+            // NBT variants only matter when eating, which the server decides
+            if (FoodKeys.isVariant(key)) continue;
+
+            String name = FoodKeys.itemName(key);
+            int itemId = name != null ? GameItemRegistry.INSTANCE.getItemId(name) : -1;
+            if (itemId < 0) continue;
+
+            int meta;
+            try {
+                meta = FoodKeys.meta(key);
+            } catch (NumberFormatException e) {
+                continue;
+            }
+
+            if (part.entries.size() == ENTRIES_PER_PACKET) {
+                part = new FoodSyncMessage(flags);
+                parts.add(part);
+            }
+            part.entries.add(new FoodSyncMessage.Entry(itemId, meta, table.get(key)));
+        }
+
+        if (full) part.flags |= FoodSyncMessage.LAST;
+        return parts;
+    }
+}
@@ -0,0 +1,140 @@
+package com.drzenovka.foodrebalanced.network;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.drzenovka.foodrebalanced.FoodRebalanced;
+import com.drzenovka.foodrebalanced.core.CompiledEffect;
+import com.drzenovka.foodrebalanced.core.FoodEntry;
+import com.drzenovka.foodrebalanced.core.FoodInterner;
+
+import cpw.mods.fml.common.network.ByteBufUtils;
+import cpw.mods.fml.common.network.simpleimpl.IMessage;
+import cpw.mods.fml.common.network.simpleimpl.IMessageHandler;
+import cpw.mods.fml.common.network.simpleimpl.MessageContext;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Part of the server's food table, sent to clients. Item ids and metas are varints with the meta only
+ * written when it isn't 0, and each distinct effect is written once per packet and referenced by index.
+ * A full sync is split over several packets, the client swaps its table once the last one arrives.
+ */
+public class FoodSyncMessage implements IMessage {
+
+    /** The first part of a full sync, the client drops everything it had */
+    public static final int FULL = 1;
+    /** The last part of a full sync */
+    public static final int LAST = 2;
+    /** Set on every part of a full sync, so its middle parts aren't taken for changes */
+    public static final int PART = 4;
+
+    public int flags;
+    public List<Entry> entries = new ArrayList<>();
+
+    public FoodSyncMessage() {}
+
+    public FoodSyncMessage(int flags) {
+        this.flags = flags;
+    }
+
+    /** One item and meta with its resolved values, or a removal if data is null */
+    public static class Entry {
+
+        public final int itemId;
+        public final int meta;
+        public final FoodEntry data;
+
+        public Entry(int itemId, int meta, FoodEntry data) {
+            this.itemId = itemId;
+            this.meta = meta;
+            this.data = data;
+        }
+    }
+
+    @Override
+    public void toBytes(ByteBuf buf) {
+        buf.writeByte(flags);
+
+        // Intern the effects, most foods share a handful of them
+        Map<CompiledEffect, Integer> effects = new LinkedHashMap<>();
+        for (Entry entry : entries) {
+            if (entry.data == null) continue;
+            for (CompiledEffect effect : entry.data.effects) effects.putIfAbsent(effect, effects.size());
+        }
+        ByteBufUtils.writeVarInt(buf, effects.size(), 5);
+        for (CompiledEffect effect : effects.keySet()) {
+            ByteBufUtils.writeVarInt(buf, effect.potionId, 5);
+            ByteBufUtils.writeVarInt(buf, effect.durationTicks, 5);
+            ByteBufUtils.writeVarInt(buf, effect.amplifier, 5);
+            buf.writeFloat(effect.chance);
+            ByteBufUtils.writeVarInt(buf, effect.delayTicks, 5);
+            ByteBufUtils.writeVarInt(buf, effect.intervalTicks, 5);
+            ByteBufUtils.writeVarInt(buf, effect.repeat, 5);
+        }
+
+        ByteBufUtils.writeVarInt(buf, entries.size(), 5);
+        for (Entry entry : entries) {
+            // Low bit of the id: 1 if a meta follows
+            ByteBufUtils.writeVarInt(buf, entry.itemId << 1 | (entry.meta != 0 ? 1 : 0), 5);
+            if (entry.meta != 0) ByteBufUtils.writeVarInt(buf, entry.meta + 1, 5); // wildcard -1 packs as 0
+
+            FoodEntry data = entry.data;
+            buf.writeBoolean(data != null);
+            if (data == null) continue;
+
+            ByteBufUtils.writeVarInt(buf, data.hunger, 5);
+            buf.writeFloat(data.saturation);
+            ByteBufUtils.writeVarInt(buf, data.effects.length, 5);
+            for (CompiledEffect effect : data.effects) ByteBufUtils.writeVarInt(buf, effects.get(effect), 5);
+        }
+    }
+
+    @Override
+    public void fromBytes(ByteBuf buf) {
+        flags = buf.readUnsignedByte();
+
+        CompiledEffect[] effects = new CompiledEffect[ByteBufUtils.readVarInt(buf, 5)];
+        for (int i = 0; i < effects.length; i++) {
+            effects[i] = new CompiledEffect(
+                ByteBufUtils.readVarInt(buf, 5),
+                ByteBufUtils.readVarInt(buf, 5),
+                ByteBufUtils.readVarInt(buf, 5),
+                buf.readFloat(),
+                ByteBufUtils.readVarInt(buf, 5),
+                ByteBufUtils.readVarInt(buf, 5),
+                ByteBufUtils.readVarInt(buf, 5));
+        }
+
+        int count = ByteBufUtils.readVarInt(buf, 5);
+        entries = new ArrayList<>(count);
+        FoodInterner interner = new FoodInterner();
+        for (int i = 0; i < count; i++) {
+            int packed = ByteBufUtils.readVarInt(buf, 5);
+            int meta = (packed & 1) != 0 ? ByteBufUtils.readVarInt(buf, 5) - 1 : 0;
+
+            FoodEntry data = null;
+            if (buf.readBoolean()) {
+                int hunger = ByteBufUtils.readVarInt(buf, 5);
+                float saturation = buf.readFloat();
+                CompiledEffect[] entryEffects = new CompiledEffect[ByteBufUtils.readVarInt(buf, 5)];
+                for (int e = 0; e < entryEffects.length; e++) {
+                    entryEffects[e] = effects[ByteBufUtils.readVarInt(buf, 5)];
+                }
+                data = interner.entry(hunger, saturation, entryEffects);
+            }
+            entries.add(new Entry(packed >>> 1, meta, data));
+        }
+    }
+
+    /** Netty runs this off the client thread, the table is only touched on the client thread */
+    public static class Handler implements IMessageHandler<FoodSyncMessage, IMessage> {
+
+        @Override
+        public IMessage onMessage(FoodSyncMessage message, MessageContext ctx) {
+            FoodRebalanced.proxy.acceptSync(message);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.drzenovka.foodrebalanced.player;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.util.FoodStats;
+
+import com.drzenovka.foodrebalanced.config.FoodRebalancedConfig;
+import com.drzenovka.foodrebalanced.config.PotionIndex;
+import com.drzenovka.foodrebalanced.core.FoodMetrics;
+
+/**
+ * Scales how fast hunger drains by dimension, activity and active potions. Once per server tick, after the
+ * players have moved, the exhaustion each player gained since the last tick is multiplied in their FoodStats.
+ * Multipliers are precomputed into arrays when the server starts and players are kept in an array of their
+ * own, so the per-tick loop does no allocation and no map lookups. Potions are rechecked once a second per
+ * player. All on the server thread.
+ */
+public class ExhaustionScaler {
+
+    /** FoodStats takes this much exhaustion off at once when it drains a point */
+    private static final float DRAIN_STEP = 4.0f;
+    /** FoodStats never holds more exhaustion than this */
+    private static final float MAX_EXHAUSTION = 40.0f;
+    private static final int SPRINTING = 1;
+    private static final int SWIMMING = 2;
+    private static final int MINING = 4;
+    private static final int POTION_INTERVAL = 20;
+
+    private static final class Tracked {
+
+        EntityPlayerMP player;
+        float last;
+        float potionScale = 1.0f;
+
+        Tracked(EntityPlayerMP player) {
+            this.player = player;
+            this.last = player.getFoodStats().foodExhaustionLevel;
+        }
+    }
+
+    private static Tracked[] tracked = new Tracked[16];
+    private static int count;
+    private static int ticks;
+
+    private static boolean enabled;
+    private static float[] byDimension = new float[0];
+    private static int minDimension;
+    /** By activity bits, sprinting, swimming and mining */
+    private static final float[] byActivity = new float[8];
+    private static int[] potionIds = new int[0];
+    private static float[] potionScales = new float[0];
+
+    /** Build the multiplier tables from the config, once potions are registered */
+    public static void configure() {
+        for (int activity = 0; activity < byActivity.length; activity++) {
+            float scale = 1.0f;
+            if ((activity & SPRINTING) != 0) scale *= FoodRebalancedConfig.sprintingExhaustion;
+            if ((activity & SWIMMING) != 0) scale *= FoodRebalancedConfig.swimmingExhaustion;
+            if ((activity & MINING) != 0) scale *= FoodRebalancedConfig.miningExhaustion;
+            byActivity[activity] = scale;
+        }
+        boolean scaled = false;
+        for (float scale : byActivity) scaled |= scale != 1.0f;
+
+        Map<Integer, Float> dimensions = FoodRebalancedConfig.dimensionExhaustion;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int dimension : dimensions.keySet()) {
+            min = Math.min(min, dimension);
+            max = Math.max(max, dimension);
+        }
+        if (min > max || (long) max - min >= 1 << 16) {
+            if (min <= max) System.err.println("[FoodRebalanced] Exhaustion dimensions span too many ids, ignored");
+            byDimension = new float[0];
+            minDimension = 0;
+        } else {
+            byDimension = new float[max - min + 1];
+            Arrays.fill(byDimension, 1.0f);
+            for (Map.Entry<Integer, Float> entry : dimensions.entrySet()) {
+                byDimension[entry.getKey() - min] = entry.getValue();
+                scaled |= entry.getValue() != 1.0f;
+            }
+            minDimension = min;
+        }
+
+        Map<String, Float> potions = FoodRebalancedConfig.potionExhaustion;
+        int[] ids = new int[potions.size()];
+        float[] scales = new float[potions.size()];
+        int resolved = 0;
+        for (Map.Entry<String, Float> entry : potions.entrySet()) {
+            int id = PotionIndex.resolve(entry.getKey());
+            if (id < 0) {
+                System.err.println("[FoodRebalanced] Unknown potion in potionExhaustion: " + entry.getKey());
+                continue;
+            }
+            ids[resolved] = id;
+            scales[resolved++] = entry.getValue();
+            scaled |= entry.getValue() != 1.0f;
+        }
+        potionIds = Arrays.copyOf(ids, resolved);
+        potionScales = Arrays.copyOf(scales, resolved);
+        enabled = scaled;
+    }
+
+    public static void track(EntityPlayerMP player) {
+        for (int i = 0; i < count; i++) {
+            if (tracked[i].player == player) return;
+        }
+        if (count == tracked.length) tracked = Arrays.copyOf(tracked, count * 2);
+        tracked[count++] = new Tracked(player);
+    }
+
+    public static void untrack(EntityPlayer player) {
+        for (int i = 0; i < count; i++) {
+            if (tracked[i].player != player) continue;
+            tracked[i] = tracked[--count];
+            tracked[count] = null;
+            return;
+        }
+    }
+
+    /** A respawned player is a new entity, continue with it */
+    public static void replace(EntityPlayer original, EntityPlayerMP clone) {
+        for (int i = 0; i < count; i++) {
+            if (tracked[i].player != original) continue;
+            tracked[i] = new Tracked(clone);
+            return;
+        }
+    }
+
+    public static void clear() {
+        Arrays.fill(tracked, 0, count, null);
+        count = 0;
+    }
+
+    /** Scale the exhaustion every player gained this tick, at the end of the server tick */
+    public static void tick() {
+        if (!enabled || count == 0) return;
+
+        long started = System.nanoTime();
+        boolean checkPotions = ++ticks % POTION_INTERVAL == 0;
+        for (int i = 0; i < count; i++) {
+            Tracked entry = tracked[i];
+            EntityPlayerMP player = entry.player;
+            if (checkPotions) entry.potionScale = potionScale(player);
+
+            FoodStats stats = player.getFoodStats();
+            float current = stats.foodExhaustionLevel;
+            if (current < entry.last - DRAIN_STEP) {
+                // More went than one drained point takes, the stats were reset, start over from here
+                entry.last = current;
+                continue;
+            }
+            // A drained point took DRAIN_STEP off since the last tick
+            float gained = current >= entry.last ? current - entry.last : current + DRAIN_STEP - entry.last;
+            if (gained > 0) {
+                float scale = entry.potionScale * dimensionScale(player.worldObj.provider.dimensionId)
+                    * byActivity[activity(player)];
+                if (scale != 1.0f) {
+                    current = Math.max(0, Math.min(current + gained * (scale - 1.0f), MAX_EXHAUSTION));
+                    stats.foodExhaustionLevel = current;
+                }
+            }
+            entry.last = current;
+        }
+        FoodMetrics.EXHAUSTION.record(System.nanoTime() - started);
+    }
+
+    private static float dimensionScale(int dimension) {
+        int slot = dimension - minDimension;
+        return slot >= 0 && slot < byDimension.length ? byDimension[slot] : 1.0f;
+    }
+
+    private static int activity(EntityPlayerMP player) {
+        int activity = 0;
+        if (player.isSprinting()) activity |= SPRINTING;
+        if (player.isInWater()) activity |= SWIMMING;
+        if (player.theItemInWorldManager.isDestroyingBlock) activity |= MINING;
+        return activity;
+    }
+
+    private static float potionScale(EntityPlayerMP player) {
+        float scale = 1.0f;
+        for (int i = 0; i < potionIds.length; i++) {
+            if (player.isPotionActive(potionIds[i])) scale *= potionScales[i];
+        }
+        return scale;
+    }
+}
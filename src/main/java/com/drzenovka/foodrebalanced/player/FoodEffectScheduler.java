@@ -0,0 +1,116 @@
+package com.drzenovka.foodrebalanced.player;
+
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraft.potion.PotionEffect;
+
+import com.drzenovka.foodrebalanced.core.CompiledEffect;
+import com.drzenovka.foodrebalanced.core.FoodMetrics;
+import com.drzenovka.foodrebalanced.core.TimingWheel;
+
+/**
+ * Delayed and repeating food effects on a timing wheel advanced once per server tick. Each player's pending
+ * effects form one {@link Session}, cancelled as a whole when they die or log out. All on the server thread.
+ */
+public class FoodEffectScheduler {
+
+    /** About 51 seconds of slots, longer delays wait in the wheel's overflow queue */
+    private static final TimingWheel<PendingEffect> WHEEL = new TimingWheel<>(1024);
+
+    /** The pending effects of one player entity, handed to the new entity when the player changes dimension */
+    public static final class Session {
+
+        EntityPlayer player;
+        final TimingWheel.Group<PendingEffect> timers = new TimingWheel.Group<>();
+
+        Session(EntityPlayer player) {
+            this.player = player;
+        }
+    }
+
+    static final class PendingEffect {
+
+        final Session session;
+        final CompiledEffect effect;
+        int remaining;
+
+        PendingEffect(Session session, CompiledEffect effect, int remaining) {
+            this.session = session;
+            this.effect = effect;
+            this.remaining = remaining;
+        }
+    }
+
+    public static void tick() {
+        WHEEL.advance(FoodEffectScheduler::run);
+    }
+
+    /** Drop everything, the players are saved by now */
+    public static void clear() {
+        WHEEL.clear();
+    }
+
+    /** Start an effect that was eaten and rolled, the first application happens now if it has no delay */
+    public static void schedule(EntityPlayer player, CompiledEffect effect) {
+        FoodPlayerData data = FoodPlayerData.get(player);
+        if (data == null) return;
+
+        int remaining = effect.repeat;
+        if (effect.delayTicks == 0) {
+            apply(player, effect);
+            if (--remaining == 0) return;
+        }
+        long delay = effect.delayTicks > 0 ? effect.delayTicks : effect.intervalTicks;
+        WHEEL.schedule(data.effects.timers, new PendingEffect(data.effects, effect, remaining), delay);
+    }
+
+    private static long run(PendingEffect pending) {
+        EntityPlayer player = pending.session.player;
+        if (player.isDead) return 0;
+
+        apply(player, pending.effect);
+        return --pending.remaining > 0 ? pending.effect.intervalTicks : 0;
+    }
+
+    private static void apply(EntityPlayer player, CompiledEffect effect) {
+        player.addPotionEffect(new PotionEffect(effect.potionId, effect.durationTicks, effect.amplifier));
+        FoodMetrics.EFFECTS_APPLIED.increment();
+    }
+
+    /** The session's pending effects, with the ticks left until each runs */
+    static NBTTagList save(Session session) {
+        NBTTagList list = new NBTTagList();
+        session.timers.forEach(WHEEL, (pending, delay) -> {
+            CompiledEffect effect = pending.effect;
+            NBTTagCompound tag = new NBTTagCompound();
+            tag.setInteger("Potion", effect.potionId);
+            tag.setInteger("Duration", effect.durationTicks);
+            tag.setInteger("Amplifier", effect.amplifier);
+            tag.setInteger("Interval", effect.intervalTicks);
+            tag.setInteger("Remaining", pending.remaining);
+            tag.setInteger("Delay", (int) Math.max(delay, 1));
+            list.appendTag(tag);
+        });
+        return list;
+    }
+
+    /** Schedule the effects saved with a player again once they are back in the world */
+    static void restore(Session session, NBTTagList list) {
+        for (int i = 0; i < list.tagCount(); i++) {
+            NBTTagCompound tag = list.getCompoundTagAt(i);
+            int remaining = tag.getInteger("Remaining");
+            if (remaining <= 0) continue;
+
+            CompiledEffect effect = new CompiledEffect(
+                tag.getInteger("Potion"),
+                tag.getInteger("Duration"),
+                tag.getInteger("Amplifier"),
+                1f,
+                0,
+                tag.getInteger("Interval"),
+                remaining);
+            WHEEL.schedule(session.timers, new PendingEffect(session, effect, remaining), tag.getInteger("Delay"));
+        }
+    }
+}
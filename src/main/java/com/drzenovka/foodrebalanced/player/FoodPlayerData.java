@@ -0,0 +1,149 @@
+package com.drzenovka.foodrebalanced.player;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraft.util.FoodStats;
+import net.minecraft.world.World;
+import net.minecraftforge.common.IExtendedEntityProperties;
+
+import com.drzenovka.foodrebalanced.config.FoodRebalancedConfig;
+
+/**
+ * The foods a player ate most recently, as compact ids in a fixed-size ring buffer, and their pending delayed
+ * effects. Lives on the player entity and only reaches NBT when the player is saved, which includes logging out.
+ */
+public class FoodPlayerData implements IExtendedEntityProperties {
+
+    public static final String PROPERTIES = "FoodRebalanced";
+    private static final String TAG_RECENT = "Recent";
+    private static final String TAG_PENDING = "Pending";
+
+    private int[] recent;
+    private int head; // next slot to write
+    private int size;
+
+    FoodEffectScheduler.Session effects;
+    /** Effects read with the player, scheduled again once they have logged in */
+    private NBTTagList savedEffects;
+    /** The food bars on the last tick of eating, -1 when none were seen since the last food */
+    private int eatingFoodLevel = -1;
+    private float eatingSaturationLevel;
+
+    public FoodPlayerData(EntityPlayer player) {
+        this.recent = new int[FoodRebalancedConfig.varietyHistory];
+        this.effects = new FoodEffectScheduler.Session(player);
+    }
+
+    public static void register(EntityPlayer player) {
+        player.registerExtendedProperties(PROPERTIES, new FoodPlayerData(player));
+    }
+
+    public static FoodPlayerData get(EntityPlayer player) {
+        return (FoodPlayerData) player.getExtendedProperties(PROPERTIES);
+    }
+
+    /** Compact id of an item and meta, the id fits the item registry's 16 bits */
+    public static int foodId(int itemId, int meta) {
+        return itemId << 16 | meta & 0xFFFF;
+    }
+
+    /** How many times the food appears in the history */
+    public int count(int foodId) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (recent[i] == foodId) count++;
+        }
+        return count;
+    }
+
+    /** Record a food, pushing out the oldest once the history is full */
+    public void eat(int foodId) {
+        if (recent.length == 0) return;
+        recent[head] = foodId;
+        head = (head + 1) % recent.length;
+        if (size < recent.length) size++;
+    }
+
+    /** Remember the food bars while an item is in use, by the time it is eaten vanilla has added to them */
+    public void holdBars(FoodStats stats) {
+        eatingFoodLevel = stats.getFoodLevel();
+        eatingSaturationLevel = stats.foodSaturationLevel;
+    }
+
+    /** The food level held since the last food, or -1 if none was, say for a food eaten instantly */
+    public int heldFoodLevel() {
+        return eatingFoodLevel;
+    }
+
+    public float heldSaturationLevel() {
+        return eatingSaturationLevel;
+    }
+
+    public void releaseBars() {
+        eatingFoodLevel = -1;
+    }
+
+    public void copyFrom(FoodPlayerData other) {
+        load(other.history());
+    }
+
+    /** Carry the pending effects over to this entity, when the player changes dimension */
+    public void takeEffects(FoodPlayerData other) {
+        EntityPlayer player = effects.player;
+        effects = other.effects;
+        effects.player = player;
+        savedEffects = other.savedEffects;
+    }
+
+    /** Schedule the effects saved with the player */
+    public void restoreEffects() {
+        if (savedEffects == null) return;
+        FoodEffectScheduler.restore(effects, savedEffects);
+        savedEffects = null;
+    }
+
+    /** Stop the pending effects, they are still saved if the player is */
+    public void cancelEffects() {
+        effects.timers.cancel();
+    }
+
+    /** The history from oldest to newest */
+    private int[] history() {
+        int[] history = new int[size];
+        int start = (head - size + recent.length) % Math.max(recent.length, 1);
+        for (int i = 0; i < size; i++) history[i] = recent[(start + i) % recent.length];
+        return history;
+    }
+
+    /** Refill from oldest to newest, keeping the newest entries if the configured size shrank */
+    private void load(int[] history) {
+        head = 0;
+        size = 0;
+        int from = Math.max(history.length - recent.length, 0);
+        for (int i = from; i < history.length; i++) eat(history[i]);
+    }
+
+    @Override
+    public void saveNBTData(NBTTagCompound compound) {
+        NBTTagCompound tag = new NBTTagCompound();
+        tag.setIntArray(TAG_RECENT, history());
+        NBTTagList pending = FoodEffectScheduler.save(effects);
+        if (savedEffects != null) {
+            for (int i = 0; i < savedEffects.tagCount(); i++) pending.appendTag(savedEffects.getCompoundTagAt(i));
+        }
+        if (pending.tagCount() > 0) tag.setTag(TAG_PENDING, pending);
+        compound.setTag(PROPERTIES, tag);
+    }
+
+    @Override
+    public void loadNBTData(NBTTagCompound compound) {
+        NBTTagCompound tag = compound.getCompoundTag(PROPERTIES);
+        load(tag.getIntArray(TAG_RECENT));
+        if (tag.hasKey(TAG_PENDING)) savedEffects = tag.getTagList(TAG_PENDING, 10); // 10: compound tags
+    }
+
+    @Override
+    public void init(Entity entity, World world) {}
+}
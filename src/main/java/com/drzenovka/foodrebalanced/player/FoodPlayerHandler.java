@@ -0,0 +1,69 @@
+package com.drzenovka.foodrebalanced.player;
+
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.event.entity.EntityEvent;
+import net.minecraftforge.event.entity.living.LivingDeathEvent;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+
+import cpw.mods.fml.common.FMLCommonHandler;
+import cpw.mods.fml.common.eventhandler.SubscribeEvent;
+import cpw.mods.fml.common.gameevent.PlayerEvent.PlayerLoggedInEvent;
+import cpw.mods.fml.common.gameevent.PlayerEvent.PlayerLoggedOutEvent;
+
+/**
+ * Attaches {@link FoodPlayerData} to players, carries it over respawns and runs its pending effects. Also keeps
+ * the {@link ExhaustionScaler} following the players that are online.
+ */
+public class FoodPlayerHandler {
+
+    public static void register() {
+        FoodPlayerHandler handler = new FoodPlayerHandler();
+        MinecraftForge.EVENT_BUS.register(handler);
+        FMLCommonHandler.instance()
+            .bus()
+            .register(handler);
+    }
+
+    @SubscribeEvent
+    public void onEntityConstructing(EntityEvent.EntityConstructing event) {
+        if (event.entity instanceof EntityPlayer player && FoodPlayerData.get(player) == null) {
+            FoodPlayerData.register(player);
+        }
+    }
+
+    @SubscribeEvent
+    public void onClone(PlayerEvent.Clone event) {
+        if (event.entityPlayer instanceof EntityPlayerMP player) ExhaustionScaler.replace(event.original, player);
+
+        FoodPlayerData original = FoodPlayerData.get(event.original);
+        FoodPlayerData clone = FoodPlayerData.get(event.entityPlayer);
+        if (original == null || clone == null) return;
+
+        clone.copyFrom(original);
+        if (!event.wasDeath) clone.takeEffects(original);
+    }
+
+    @SubscribeEvent
+    public void onPlayerLoggedIn(PlayerLoggedInEvent event) {
+        if (event.player instanceof EntityPlayerMP player) ExhaustionScaler.track(player);
+        FoodPlayerData data = event.player instanceof EntityPlayerMP ? FoodPlayerData.get(event.player) : null;
+        if (data != null) data.restoreEffects();
+    }
+
+    /** Fired before the player is saved, so the cancelled effects are still written to their NBT */
+    @SubscribeEvent
+    public void onPlayerLoggedOut(PlayerLoggedOutEvent event) {
+        ExhaustionScaler.untrack(event.player);
+        FoodPlayerData data = FoodPlayerData.get(event.player);
+        if (data != null) data.cancelEffects();
+    }
+
+    @SubscribeEvent
+    public void onDeath(LivingDeathEvent event) {
+        if (!(event.entityLiving instanceof EntityPlayerMP player)) return;
+        FoodPlayerData data = FoodPlayerData.get(player);
+        if (data != null) data.cancelEffects();
+    }
+}
@@ -0,0 +1,163 @@
+package com.drzenovka.foodrebalanced.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class EatRecordBufferTest {
+
+    private static final CompiledEffect[] EFFECTS = { new CompiledEffect(17, 600, 0, 0.3f) };
+
+    /** A drained record flattened to a string, so records compare with equals */
+    private static String record(long time, long most, long least, int dimension, int itemId, int meta,
+        int hunger, float saturation, CompiledEffect[] effects, long rolled) {
+        return time + "," + most
+            + ","
+            + least
+            + ","
+            + dimension
+            + ","
+            + itemId
+            + ","
+            + meta
+            + ","
+            + hunger
+            + ","
+            + saturation
+            + ","
+            + effects.length
+            + ","
+            + rolled;
+    }
+
+    private static List<String> drainAll(EatRecordBuffer buffer) {
+        List<String> records = new ArrayList<>();
+        buffer.drain(
+            (time, most, least, dimension, itemId, meta, hunger, saturation, effects, rolled) -> records
+                .add(record(time, most, least, dimension, itemId, meta, hunger, saturation, effects, rolled)),
+            Integer.MAX_VALUE);
+        return records;
+    }
+
+    @Test
+    public void fieldsSurviveTheRoundTrip() {
+        EatRecordBuffer buffer = new EatRecordBuffer(4);
+        buffer.add(1000L, -1L, Long.MIN_VALUE, -1, 31999, 70000, 8, 0.75f, EFFECTS, 1L);
+        buffer.add(2000L, 5L, 6L, Integer.MIN_VALUE, 1, -1, -3, -0.5f, CompiledEffect.NONE, -1L);
+        buffer.add(3000L, 0L, 0L, Integer.MAX_VALUE, 65536, Integer.MAX_VALUE, Integer.MAX_VALUE, 0f, EFFECTS, 0L);
+
+        List<String> records = drainAll(buffer);
+        assertEquals(3, records.size());
+        assertEquals(record(1000L, -1L, Long.MIN_VALUE, -1, 31999, 70000, 8, 0.75f, EFFECTS, 1L), records.get(0));
+        assertEquals(
+            record(2000L, 5L, 6L, Integer.MIN_VALUE, 1, -1, -3, -0.5f, CompiledEffect.NONE, -1L),
+            records.get(1));
+        assertEquals(
+            record(3000L, 0L, 0L, Integer.MAX_VALUE, 65536, Integer.MAX_VALUE, Integer.MAX_VALUE, 0f, EFFECTS, 0L),
+            records.get(2));
+    }
+
+    @Test
+    public void drainedEffectsAreTheSharedArray() {
+        EatRecordBuffer buffer = new EatRecordBuffer(2);
+        buffer.add(0L, 0L, 0L, 0, 1, 0, 1, 0f, EFFECTS, 0L);
+        CompiledEffect[][] seen = new CompiledEffect[1][];
+        buffer.drain((time, most, least, dimension, itemId, meta, hunger, saturation, effects, rolled) -> {
+            seen[0] = effects;
+        }, 1);
+        assertSame(EFFECTS, seen[0]);
+    }
+
+    @Test
+    public void aFullBufferDropsAndCounts() {
+        EatRecordBuffer buffer = new EatRecordBuffer(3);
+        assertEquals(4, buffer.capacity());
+        for (int i = 0; i < 4; i++) assertTrue(buffer.add(i, 0L, 0L, 0, 1, i, 1, 0f, EFFECTS, 0L));
+        assertFalse(buffer.add(4, 0L, 0L, 0, 1, 4, 1, 0f, EFFECTS, 0L));
+        assertEquals(1, buffer.dropped());
+
+        // Draining frees the slots for the next lap, in order
+        assertEquals(4, drainAll(buffer).size());
+        assertTrue(buffer.add(5, 0L, 0L, 0, 1, 5, 1, 0f, EFFECTS, 0L));
+        List<String> records = drainAll(buffer);
+        assertEquals(1, records.size());
+        assertTrue(records.get(0)
+            .startsWith("5,"));
+    }
+
+    @Test
+    public void drainStopsAtMax() {
+        EatRecordBuffer buffer = new EatRecordBuffer(8);
+        for (int i = 0; i < 5; i++) buffer.add(i, 0L, 0L, 0, 1, 0, 1, 0f, EFFECTS, 0L);
+        AtomicInteger seen = new AtomicInteger();
+        assertEquals(
+            3,
+            buffer.drain(
+                (time, most, least, dimension, itemId, meta, hunger, saturation, effects, rolled) -> seen
+                    .incrementAndGet(),
+                3));
+        assertEquals(3, seen.get());
+        assertEquals(2, drainAll(buffer).size());
+    }
+
+    @Test
+    public void concurrentProducersLoseNothingButDrops() throws InterruptedException {
+        EatRecordBuffer buffer = new EatRecordBuffer(1024);
+        int producers = 4;
+        int perProducer = 50_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                // Each record carries its producer and sequence in fields that must stay together
+                for (int i = 0; i < perProducer; i++) {
+                    buffer.add(i, producer, i, producer, i, i, producer, 0f, EFFECTS, i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        long[] next = new long[producers];
+        long[] received = { 0 };
+        boolean[] consistent = { true };
+        EatRecordBuffer.Consumer check = (time, most, least, dimension, itemId, meta, hunger, saturation, effects,
+            rolled) -> {
+            int producer = (int) most;
+            consistent[0] &= dimension == producer && hunger == producer
+                && time == least
+                && itemId == least
+                && meta == least
+                && rolled == least
+                && least >= next[producer];
+            next[producer] = least + 1;
+            received[0]++;
+        };
+
+        start.countDown();
+        boolean running = true;
+        while (running) {
+            running = false;
+            for (Thread thread : threads) running |= thread.isAlive();
+            buffer.drain(check, Integer.MAX_VALUE);
+        }
+        buffer.drain(check, Integer.MAX_VALUE);
+
+        assertTrue(consistent[0], "records were torn or out of order");
+        assertEquals((long) producers * perProducer, received[0] + buffer.dropped());
+    }
+}
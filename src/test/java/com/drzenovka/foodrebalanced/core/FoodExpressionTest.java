@@ -0,0 +1,149 @@
+package com.drzenovka.foodrebalanced.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class FoodExpressionTest {
+
+    /** Vanilla bread: 5 hunger, 0.6 saturation, meta 0 */
+    private static final FoodExpression.Item BREAD = new FoodExpression.Item(5, 0.6, 0, "minecraft");
+
+    private static double hunger(String formula) {
+        FoodExpression.Value value = FoodExpression.parse(formula, false)
+            .fold(BREAD.vanillaHunger, BREAD, null);
+        assertTrue(value.isConstant(), formula + " should fold to a constant");
+        return value.constant();
+    }
+
+    private static String parseError(String formula) {
+        return assertThrows(IllegalArgumentException.class, () -> FoodExpression.parse(formula, false))
+            .getMessage();
+    }
+
+    private static String foldError(String formula) {
+        FoodExpression expression = FoodExpression.parse(formula, false);
+        return assertThrows(IllegalArgumentException.class, () -> expression.fold(BREAD.vanillaHunger, BREAD, null))
+            .getMessage();
+    }
+
+    @Test
+    public void multiplicationBindsTighterThanAddition() {
+        assertEquals(7, hunger("1 + 2 * 3"), 0);
+        assertEquals(9, hunger("(1 + 2) * 3"), 0);
+        assertEquals(2, hunger("8 / 2 / 2"), 0);
+        assertEquals(-3, hunger("1 - 2 - 2"), 0);
+    }
+
+    @Test
+    public void unaryMinusBindsTighterThanBinaryOperators() {
+        assertEquals(-6, hunger("-2 * 3"), 0);
+        assertEquals(2, hunger("--2"), 0);
+        assertEquals(-1, hunger("2 - -(-3)"), 0);
+    }
+
+    @Test
+    public void comparisonsBindLooserThanArithmeticAndConditionalsLoosest() {
+        assertEquals(1, hunger("1 + 1 == 2"), 0);
+        assertEquals(0, hunger("2 * 3 < 5"), 0);
+        assertEquals(1, hunger("3 <= 3"), 0);
+        assertEquals(10, hunger("vanilla > 4 ? 10 : 1"), 0);
+        assertEquals(3, hunger("0 ? 1 : 0 ? 2 : 3"), 0);
+    }
+
+    @Test
+    public void loadTimeVariablesAndFunctionsFold() {
+        assertEquals(4, hunger("80%"), 1e-9);
+        assertEquals(4, hunger("round(vanilla * 0.75)"), 0);
+        assertEquals(3, hunger("clamp(vanilla, 1, 3)"), 0);
+        assertEquals(5, hunger("max(vanillaHunger, meta)"), 0);
+        assertEquals(6, hunger("ceil(vanillaSaturation * 10)"), 0);
+        assertEquals(2, hunger("namespace == 'minecraft' ? 2 : 8"), 0);
+        assertEquals(8, hunger("namespace != \"minecraft\" ? 2 : 8"), 0);
+    }
+
+    @Test
+    public void saturationFormulasSeeTheFoldedHunger() {
+        FoodExpression.Value hunger = FoodExpression.Value.of(4);
+        FoodExpression.Value saturation = FoodExpression.parse("hunger / 10", true)
+            .fold(BREAD.vanillaSaturation, BREAD, hunger);
+        assertEquals(0.4, saturation.constant(), 1e-9);
+    }
+
+    @Test
+    public void playerStateIsLeftAsACompiledFormula() {
+        FoodExpression expression = FoodExpression.parse("vanilla * 2 - foodLevel / 4", false);
+        assertTrue(expression.isRuntime());
+
+        FoodExpression.Value value = expression.fold(BREAD.vanillaHunger, BREAD, null);
+        assertFalse(value.isConstant());
+        assertEquals("(10 - (foodLevel / 4))", value.formula().text);
+        assertEquals(10, value.nominal(), 0);
+        assertEquals(5, value.formula()
+            .apply(20, 0f), 0);
+        assertNull(FoodExpression.Value.of(3)
+            .formula());
+    }
+
+    @Test
+    public void entriesClampFormulasToAFoodBarAndFallBackWhenNotFinite() {
+        FoodExpression.Value value = FoodExpression.parse("vanilla + 4 / foodLevel", false)
+            .fold(BREAD.vanillaHunger, BREAD, null);
+        FoodEntry entry = new FoodEntry(5, 0.6f, value.formula(), null, CompiledEffect.NONE);
+        // 4 / 0 is infinite, the int cast of Math.round(Infinity) used to give -1
+        assertEquals(5, entry.hunger(0, 0f));
+        assertEquals(9, entry.hunger(1, 0f));
+
+        FoodExpression.Value huge = FoodExpression.parse("vanilla * 1e12 / foodLevel", false)
+            .fold(BREAD.vanillaHunger, BREAD, null);
+        assertEquals(20, new FoodEntry(5, 0.6f, huge.formula(), null, CompiledEffect.NONE).hunger(1, 0f));
+        FoodExpression.Value negative = FoodExpression.parse("vanilla - foodLevel", false)
+            .fold(BREAD.vanillaHunger, BREAD, null);
+        assertEquals(0, new FoodEntry(5, 0.6f, negative.formula(), null, CompiledEffect.NONE).hunger(20, 0f));
+
+        FoodExpression.Value saturation = FoodExpression.parse("0 / foodLevel", true)
+            .fold(BREAD.vanillaSaturation, BREAD, FoodExpression.Value.of(5));
+        assertEquals(0.6f, new FoodEntry(5, 0.6f, null, saturation.formula(), CompiledEffect.NONE).saturation(0, 0f));
+    }
+
+    @Test
+    public void constantConditionsPickOneBranch() {
+        FoodExpression.Value value = FoodExpression.parse("meta == 0 ? vanilla : foodLevel", false)
+            .fold(BREAD.vanillaHunger, BREAD, null);
+        assertTrue(value.isConstant());
+        assertEquals(5, value.constant(), 0);
+    }
+
+    @Test
+    public void divisionByZeroIsRejectedAtFold() {
+        assertTrue(foldError("vanilla / 0").contains("divides by zero"));
+        assertTrue(foldError("foodLevel / (meta * 2)").contains("divides by zero"));
+        assertTrue(foldError("1 / (vanilla - 5)").contains("divides by zero"));
+        // Only the branch taken is folded
+        assertEquals(1, hunger("vanilla == 5 ? 1 : 1 / 0"), 0);
+    }
+
+    @Test
+    public void nonFiniteConstantsAreRejectedAtFold() {
+        assertTrue(foldError("1e300 * 1e300").contains("not a finite number"));
+        assertTrue(parseError("1e999").startsWith("number too large at column 1"));
+    }
+
+    @Test
+    public void errorsGiveTheColumn() {
+        assertTrue(parseError("1 + ").startsWith("unexpected end of formula at column 5"));
+        assertTrue(parseError("2 * $").startsWith("unexpected '$' at column 5"));
+        assertTrue(parseError("(1 + 2").startsWith("expected ')' at column 7"));
+        assertTrue(parseError("vanila * 2").startsWith("unknown variable vanila at column 1"));
+        assertTrue(parseError("sqrt(4)").startsWith("unknown function sqrt at column 6"));
+        assertTrue(parseError("min(1)").startsWith("min takes 2 arguments, got 1"));
+        assertTrue(parseError("hunger * 2").startsWith("hunger can only be used in a saturation formula"));
+        assertTrue(parseError("namespace + 1").startsWith("strings can only be compared"));
+        assertTrue(parseError("namespace == 1").startsWith("can't compare a string with a number"));
+        assertTrue(parseError("-5%").startsWith("can't be a negative percentage"));
+    }
+}
@@ -0,0 +1,94 @@
+package com.drzenovka.foodrebalanced.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class FoodIndexTest {
+
+    private final StandInRegistry items = new StandInRegistry();
+    private final int apple = items.registerItem("minecraft:apple");
+    private final int fish = items.registerItem("minecraft:fish");
+
+    private FoodIndex build(Map<String, FoodData> entries) {
+        return FoodIndex.build(entries, items, new FoodInterner());
+    }
+
+    @Test
+    public void exactMetaBeatsTheWildcard() {
+        Map<String, FoodData> entries = new LinkedHashMap<>();
+        entries.put("minecraft:fish:-1", new FoodData(2, 0.1f));
+        entries.put("minecraft:fish:1", new FoodData(5, 0.6f));
+        FoodIndex index = build(entries);
+
+        assertEquals(5, index.get(fish, 1).hunger);
+        assertEquals(2, index.get(fish, 0).hunger);
+        assertEquals(2, index.get(fish, 3).hunger);
+        assertNull(index.getExact(fish, 0));
+        assertEquals(2, index.getWildcard(fish).hunger);
+    }
+
+    @Test
+    public void denseAndSparseMetasAreBothFound() {
+        Map<String, FoodData> entries = new LinkedHashMap<>();
+        entries.put("minecraft:apple:0", new FoodData(4, 0.3f));
+        entries.put("minecraft:apple:63", new FoodData(1, 0.1f));
+        entries.put("minecraft:apple:5000", new FoodData(7, 0.2f));
+        entries.put("minecraft:apple:64", new FoodData(3, 0.4f));
+        entries.put("minecraft:apple:100000", new FoodData(8, 0.8f));
+        FoodIndex index = build(entries);
+
+        assertEquals(4, index.get(apple, 0).hunger);
+        assertEquals(1, index.get(apple, 63).hunger);
+        assertEquals(3, index.get(apple, 64).hunger);
+        assertEquals(7, index.get(apple, 5000).hunger);
+        assertEquals(8, index.get(apple, 100000).hunger);
+        assertNull(index.get(apple, 65));
+        assertNull(index.get(apple, 4999));
+    }
+
+    @Test
+    public void unknownItemsAndIdsAreSkipped() {
+        Map<String, FoodData> entries = new LinkedHashMap<>();
+        entries.put("othermod:cake:0", new FoodData(6, 0.5f));
+        entries.put("minecraft:apple:0", new FoodData(4, 0.3f));
+        FoodIndex index = build(entries);
+
+        assertNull(index.get(-1, 0));
+        assertNull(index.get(fish, 0));
+        assertNull(index.get(1000, 0));
+        assertEquals(4, index.get(apple, 0).hunger);
+    }
+
+    @Test
+    public void equalEntriesShareOneInstance() {
+        Map<String, FoodData> entries = new LinkedHashMap<>();
+        entries.put("minecraft:apple:0", new FoodData(4, 0.3f));
+        entries.put("minecraft:fish:0", new FoodData(4, 0.3f));
+        FoodIndex index = build(entries);
+
+        assertSame(index.get(apple, 0), index.get(fish, 0));
+    }
+
+    @Test
+    public void withCopiesOnlyTheChangedRow() {
+        Map<String, FoodData> entries = new LinkedHashMap<>();
+        entries.put("minecraft:apple:0", new FoodData(4, 0.3f));
+        FoodIndex index = build(entries);
+
+        FoodEntry fishEntry = new FoodEntry(2, 0.1f, new CompiledEffect[0]);
+        FoodIndex changed = index.with(fish, 0, fishEntry);
+        FoodIndex added = changed.with(apple, 70, fishEntry);
+
+        assertNull(index.get(fish, 0));
+        assertSame(fishEntry, changed.get(fish, 0));
+        assertNull(changed.get(apple, 70));
+        assertSame(fishEntry, added.get(apple, 70));
+        assertSame(index.get(apple, 0), added.get(apple, 0));
+    }
+}
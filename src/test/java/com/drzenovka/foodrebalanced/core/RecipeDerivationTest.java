@@ -0,0 +1,122 @@
+package com.drzenovka.foodrebalanced.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class RecipeDerivationTest {
+
+    private static final String APPLE = "minecraft:apple:0";
+
+    private final Map<String, FoodData> known = new HashMap<>();
+    private final List<RecipeDerivation.Recipe> recipes = new ArrayList<>();
+
+    public RecipeDerivationTest() {
+        known.put(APPLE, new FoodData(4, 0.3f));
+    }
+
+    private void recipe(String output, int count, String[]... slots) {
+        recipes.add(new RecipeDerivation.Recipe(output, count, slots, 1.0));
+    }
+
+    private static String[] slot(String... options) {
+        return options;
+    }
+
+    private Map<String, FoodData> derive(String... targets) {
+        return new RecipeDerivation(recipes, known::get, key -> null).derive(Arrays.asList(targets));
+    }
+
+    @Test
+    public void ingredientsAddUpAndSplitOverTheOutput() {
+        recipe("mod:pie:0", 2, slot(APPLE), slot(APPLE), slot("minecraft:sugar:0"));
+        FoodData pie = derive("mod:pie:0").get("mod:pie:0");
+        assertEquals(4, (int) pie.hunger);
+        assertEquals(0.3f, pie.saturation, 1e-6f);
+    }
+
+    @Test
+    public void intermediatesAreDerivedFirst() {
+        recipe("mod:slice:0", 1, slot(APPLE));
+        recipe("mod:tart:0", 1, slot("mod:slice:0"), slot("mod:slice:0"));
+        assertEquals(8, (int) derive("mod:tart:0").get("mod:tart:0").hunger);
+    }
+
+    @Test
+    public void cyclesGiveTheSameValuesWhateverTheOrder() {
+        // Juice and jelly can each be made from the other, or from apples
+        recipe("mod:juice:0", 1, slot("mod:jelly:0"));
+        recipe("mod:juice:0", 1, slot(APPLE), slot(APPLE));
+        recipe("mod:jelly:0", 1, slot("mod:juice:0"));
+        recipe("mod:jelly:0", 1, slot(APPLE));
+
+        Map<String, FoodData> forward = derive("mod:juice:0", "mod:jelly:0");
+        Map<String, FoodData> backward = derive("mod:jelly:0", "mod:juice:0");
+        // Each is worth its recipe from outside the cycle
+        assertEquals(8, (int) forward.get("mod:juice:0").hunger);
+        assertEquals(4, (int) forward.get("mod:jelly:0").hunger);
+        assertEquals(forward.get("mod:juice:0"), backward.get("mod:juice:0"));
+        assertEquals(forward.get("mod:jelly:0"), backward.get("mod:jelly:0"));
+    }
+
+    @Test
+    public void aSlotFallsBackToOptionsOutsideTheCycle() {
+        // Fruit salad is itself a fruit, so the ore dictionary slot offers it for its own recipe
+        recipe("mod:salad:0", 1, slot("mod:salad:0", APPLE), slot("mod:salad:0", APPLE));
+        assertEquals(8, (int) derive("mod:salad:0").get("mod:salad:0").hunger);
+    }
+
+    @Test
+    public void recipesWithOnlyTheOutputInASlotAreSkipped() {
+        recipe("mod:loop:0", 1, slot("mod:loop:0"), slot(APPLE));
+        RecipeDerivation derivation = new RecipeDerivation(recipes, known::get, key -> null);
+        assertFalse(derivation.derive(Arrays.asList("mod:loop:0"))
+            .containsKey("mod:loop:0"));
+        assertEquals(1, derivation.cycles());
+    }
+
+    @Test
+    public void oreListCyclesAcrossModsAreWalkedOnce() {
+        // Each mod's copper block takes any mod's ingots and gives back its own, one cycle through every mod
+        int mods = 12;
+        String[] ingots = new String[mods];
+        for (int m = 0; m < mods; m++) ingots[m] = "mod" + m + ":ingotCopper:0";
+        for (int m = 0; m < mods; m++) {
+            String block = "mod" + m + ":blockCopper:0";
+            String[][] slots = new String[9][];
+            Arrays.fill(slots, ingots);
+            recipe(block, 1, slots);
+            recipe(ingots[m], 9, slot(block));
+        }
+        recipe("mod:knife:0", 1, slot(ingots), slot("minecraft:stick:0"));
+        recipe("mod:stew:0", 1, slot(APPLE), slot("mod:knife:0"));
+
+        RecipeDerivation derivation = new RecipeDerivation(recipes, known::get, key -> null);
+        Map<String, FoodData> derived = assertTimeoutPreemptively(
+            Duration.ofSeconds(5),
+            () -> derivation.derive(Arrays.asList("mod:stew:0", ingots[mods - 1], "mod:knife:0")));
+        assertEquals(4, (int) derived.get("mod:stew:0").hunger);
+        assertFalse(derived.containsKey("mod:knife:0"));
+        // Every copper recipe only leads back into the cycle
+        assertEquals(2 * mods, derivation.cycles());
+    }
+
+    @Test
+    public void uncraftedIngredientsUseTheirOwnValues() {
+        recipe("mod:stew:0", 1, slot("mod:mushroom:0"), slot("mod:mushroom:0"));
+        Map<String, FoodData> derived = new RecipeDerivation(
+            recipes,
+            known::get,
+            key -> key.equals("mod:mushroom:0") ? new FoodData(1, 0.5f) : null).derive(Arrays.asList("mod:stew:0"));
+        assertEquals(2, (int) derived.get("mod:stew:0").hunger);
+    }
+}
@@ -0,0 +1,118 @@
+package com.drzenovka.foodrebalanced.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class TimingWheelTest {
+
+    /** Advance the wheel the given number of ticks, recording "task@tick" for each run */
+    private static List<String> run(TimingWheel<String> wheel, int ticks, TimingWheel.Task<String> task) {
+        List<String> ran = new ArrayList<>();
+        for (int i = 0; i < ticks; i++) {
+            wheel.advance(name -> {
+                ran.add(name + "@" + wheel.now());
+                return task.run(name);
+            });
+        }
+        return ran;
+    }
+
+    @Test
+    public void runsTasksOnTheirDueTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(8);
+        TimingWheel.Group<String> group = new TimingWheel.Group<>();
+        wheel.schedule(group, "a", 3);
+        wheel.schedule(group, "b", 1);
+        wheel.schedule(group, "c", 0); // runs on the next tick at the earliest
+
+        List<String> ran = run(wheel, 5, name -> 0);
+        assertTrue(ran.contains("a@3"));
+        assertTrue(ran.contains("b@1"));
+        assertTrue(ran.contains("c@1"));
+        assertEquals(3, ran.size());
+    }
+
+    @Test
+    public void delaysBeyondOneTurnWaitInTheOverflow() {
+        TimingWheel<String> wheel = new TimingWheel<>(4);
+        TimingWheel.Group<String> group = new TimingWheel.Group<>();
+        wheel.schedule(group, "far", 21);
+        wheel.schedule(group, "near", 2);
+
+        List<String> ran = run(wheel, 30, name -> 0);
+        assertEquals(2, ran.size());
+        assertEquals("near@2", ran.get(0));
+        assertEquals("far@21", ran.get(1));
+    }
+
+    @Test
+    public void slotSizeIsRoundedUpToAPowerOfTwo() {
+        // Seven slots become eight, so a delay of seven still lands in the wheel and the slot of tick 7
+        TimingWheel<String> wheel = new TimingWheel<>(7);
+        TimingWheel.Group<String> group = new TimingWheel.Group<>();
+        wheel.schedule(group, "a", 7);
+        wheel.schedule(group, "b", 15);
+
+        List<String> ran = run(wheel, 16, name -> 0);
+        assertEquals(2, ran.size());
+        assertEquals("a@7", ran.get(0));
+        assertEquals("b@15", ran.get(1));
+    }
+
+    @Test
+    public void repeatingTasksRunAgainAfterTheReturnedDelay() {
+        TimingWheel<String> wheel = new TimingWheel<>(8);
+        TimingWheel.Group<String> group = new TimingWheel.Group<>();
+        wheel.schedule(group, "tick", 2);
+
+        Map<String, Integer> left = new HashMap<>();
+        left.put("tick", 3);
+        List<String> ran = run(wheel, 40, name -> left.merge(name, -1, Integer::sum) > 0 ? 10 : 0);
+        assertEquals(3, ran.size());
+        assertEquals("tick@2", ran.get(0));
+        assertEquals("tick@12", ran.get(1));
+        assertEquals("tick@22", ran.get(2));
+    }
+
+    @Test
+    public void cancelledGroupsDropTheirTimers() {
+        TimingWheel<String> wheel = new TimingWheel<>(4);
+        TimingWheel.Group<String> kept = new TimingWheel.Group<>();
+        TimingWheel.Group<String> cancelled = new TimingWheel.Group<>();
+        wheel.schedule(kept, "kept", 2);
+        wheel.schedule(cancelled, "near", 2);
+        wheel.schedule(cancelled, "far", 20);
+        cancelled.cancel();
+
+        List<String> ran = run(wheel, 25, name -> 0);
+        assertEquals(1, ran.size());
+        assertEquals("kept@2", ran.get(0));
+
+        // Dropped timers are unlinked from the group once their slot comes up
+        List<String> pending = new ArrayList<>();
+        cancelled.forEach(wheel, (task, ticks) -> pending.add(task));
+        assertTrue(pending.isEmpty());
+    }
+
+    @Test
+    public void groupsListPendingTasksWithTicksLeft() {
+        TimingWheel<String> wheel = new TimingWheel<>(8);
+        TimingWheel.Group<String> group = new TimingWheel.Group<>();
+        wheel.schedule(group, "a", 5);
+        wheel.schedule(group, "b", 30);
+        run(wheel, 2, name -> 0);
+
+        Map<String, Long> pending = new HashMap<>();
+        group.forEach(wheel, pending::put);
+        assertEquals(2, pending.size());
+        assertEquals(3L, (long) pending.get("a"));
+        assertEquals(28L, (long) pending.get("b"));
+    }
+}